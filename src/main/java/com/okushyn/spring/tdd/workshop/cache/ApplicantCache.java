@@ -0,0 +1,225 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.model.ContactPoint;
+import com.okushyn.spring.tdd.workshop.model.ElectronicAddress;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot working set of applicants, indexed by id and by email.
+ * Entries expire after {@code ttl} so changes made by other instances are picked up eventually;
+ * above {@code maxEntries} the least recently used tenth is dropped.
+ * <p>
+ * Every eviction leaves a tombstone. A read that started before the eviction can't cache what it loaded,
+ * it may have seen the row before the delete committed.
+ */
+public class ApplicantCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Long> idByEmail = new ConcurrentHashMap<>();
+    private final Map<Long, Long> tombstones = new ConcurrentHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    //tombstones up to this eviction were dropped, reads started before it can't be checked any more
+    private volatile long forgottenUpTo;
+
+    public ApplicantCache(boolean enabled, int maxEntries, Duration ttl, Clock clock) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    public Optional<Applicant> getById(Long applicantId) {
+        final Entry entry = byId.get(applicantId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        final long now = clock.millis();
+        if (now - entry.cachedAt >= ttl.toMillis()) {
+            remove(applicantId, entry);
+            return Optional.empty();
+        }
+        entry.lastAccess = now;
+        return Optional.of(entry.applicant);
+    }
+
+    public Optional<Applicant> getByEmail(String email) {
+        final Long applicantId = idByEmail.get(email);
+        return applicantId == null ? Optional.empty() : getById(applicantId);
+    }
+
+    /**
+     * @return stamp to take before reading an applicant from the database, see {@link #putIfNotEvictedSince}
+     */
+    public long stamp() {
+        return evictions.get();
+    }
+
+    /**
+     * Caches an applicant just written or otherwise known to be current.
+     */
+    public void put(Applicant applicant) {
+        putIfNotEvictedSince(applicant, Long.MAX_VALUE);
+    }
+
+    /**
+     * Caches an applicant read from the database, unless it was evicted after {@code stamp} was taken.
+     */
+    public void putIfNotEvictedSince(Applicant applicant, long stamp) {
+        final String email = emailOf(applicant);
+        if (!enabled || applicant.getApplicantId() == null || email == null) {
+            return;
+        }
+        final Entry entry = new Entry(applicant, clock.millis());
+        byId.compute(applicant.getApplicantId(), (applicantId, previous) -> {
+            //tombstones first, they are dropped after forgottenUpTo is raised
+            if (tombstones.getOrDefault(applicantId, Long.MIN_VALUE) > stamp || stamp < forgottenUpTo) {
+                return previous;
+            }
+            if (previous != null && !email.equals(emailOf(previous.applicant))) {
+                idByEmail.remove(emailOf(previous.applicant), applicantId);
+            }
+            idByEmail.put(email, applicantId);
+            return entry;
+        });
+        if (byId.size() > maxEntries) {
+            shrink();
+        }
+    }
+
+    /**
+     * Caches the applicant once the surrounding transaction committed, so a rolled back save is never served.
+     */
+    public void putAfterCommit(Applicant applicant) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(applicant);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(applicant);
+            }
+        });
+    }
+
+    public void evict(Long applicantId) {
+        if (!enabled) {
+            return;
+        }
+        byId.compute(applicantId, (id, previous) -> {
+            tombstones.put(id, evictions.incrementAndGet());
+            if (previous != null) {
+                idByEmail.remove(emailOf(previous.applicant), id);
+            }
+            return null;
+        });
+        if (tombstones.size() > maxEntries) {
+            forgetTombstones();
+        }
+    }
+
+    /**
+     * Evicts now and once more after commit, so reads running until the delete is visible can't cache the applicant.
+     */
+    public void evictAfterCommit(Long applicantId) {
+        evict(applicantId);
+        if (enabled && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(applicantId);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        byId.clear();
+        idByEmail.clear();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return up to {@code limit} applicants, most recently used first
+     */
+    public List<Applicant> hottest(int limit) {
+        //lastAccess keeps changing, sort a copy of it
+        return byId.values().stream()
+                .map(entry -> new Ranked<>(entry.applicant, entry.lastAccess))
+                .sorted(Comparator.comparingLong((Ranked<Applicant> ranked) -> ranked.lastAccess()).reversed())
+                .limit(limit)
+                .map(Ranked::value)
+                .toList();
+    }
+
+    private void remove(Long applicantId, Entry entry) {
+        if (byId.remove(applicantId, entry)) {
+            idByEmail.remove(emailOf(entry.applicant), applicantId);
+        }
+    }
+
+    private synchronized void shrink() {
+        final int overflow = byId.size() - maxEntries;
+        if (overflow <= 0) {
+            return;
+        }
+        //dropping more than the overflow keeps this sort from running on every put
+        byId.entrySet().stream()
+                .map(entry -> new Ranked<>(entry, entry.getValue().lastAccess))
+                .sorted(Comparator.comparingLong(Ranked::lastAccess))
+                .limit(overflow + maxEntries / 10)
+                .map(Ranked::value)
+                .toList()
+                .forEach(entry -> remove(entry.getKey(), entry.getValue()));
+    }
+
+    private synchronized void forgetTombstones() {
+        if (tombstones.size() <= maxEntries) {
+            return;
+        }
+        final long forgotten = evictions.get();
+        forgottenUpTo = forgotten;
+        tombstones.values().removeIf(eviction -> eviction <= forgotten);
+    }
+
+    private static String emailOf(Applicant applicant) {
+        return Optional.ofNullable(applicant.getContactPoint())
+                .map(ContactPoint::getElectronicAddress)
+                .map(ElectronicAddress::getEmail)
+                .orElse(null);
+    }
+
+    private record Ranked<T>(T value, long lastAccess) {
+    }
+
+    private static final class Entry {
+        private final Applicant applicant;
+        private final long cachedAt;
+        private volatile long lastAccess;
+
+        private Entry(Applicant applicant, long cachedAt) {
+            this.applicant = applicant;
+            this.cachedAt = cachedAt;
+            this.lastAccess = cachedAt;
+        }
+    }
+}
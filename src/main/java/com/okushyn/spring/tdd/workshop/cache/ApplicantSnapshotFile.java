@@ -0,0 +1,121 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped snapshot of the applicant working set:
+ * <pre>
+ * int magic, int version, long writtenAtMillis, int count,
+ * count x (long applicantId, int emailLength, email, int jsonLength, applicant as json)
+ * </pre>
+ * Written to a temporary file and moved into place, so readers never see a half written snapshot.
+ */
+public class ApplicantSnapshotFile {
+
+    private static final int MAGIC = 0x41505348; //"APSH"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 3 + Long.BYTES;
+    private static final int MIN_RECORD_BYTES = Long.BYTES + Integer.BYTES * 2;
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public ApplicantSnapshotFile(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    public void write(List<Applicant> applicants, long writtenAtMillis) throws IOException {
+        final List<byte[]> emails = new ArrayList<>(applicants.size());
+        final List<byte[]> records = new ArrayList<>(applicants.size());
+        long size = HEADER_BYTES;
+        for (Applicant applicant : applicants) {
+            final byte[] email = applicant.getContactPoint().getElectronicAddress().getEmail().getBytes(StandardCharsets.UTF_8);
+            final byte[] json = objectMapper.writeValueAsBytes(applicant);
+            emails.add(email);
+            records.add(json);
+            size += Long.BYTES + Integer.BYTES + email.length + Integer.BYTES + json.length;
+        }
+
+        final Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(writtenAtMillis).putInt(applicants.size());
+                for (int i = 0; i < applicants.size(); i++) {
+                    buffer.putLong(applicants.get(i).getApplicantId());
+                    buffer.putInt(emails.get(i).length).put(emails.get(i));
+                    buffer.putInt(records.get(i).length).put(records.get(i));
+                }
+                buffer.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @throws IOException also when the file is not a snapshot of this version, is truncated or corrupt
+     */
+    public Snapshot read() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not an applicant snapshot of version " + VERSION + ": " + file);
+            }
+            final long writtenAtMillis = buffer.getLong();
+            final int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / MIN_RECORD_BYTES) {
+                throw new IOException("Corrupt applicant snapshot, it can't hold " + count + " applicants: " + file);
+            }
+            final List<Applicant> applicants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final long applicantId = buffer.getLong();
+                //the email is part of the json too, it's kept in the index for tools reading the file
+                final int emailLength = length(buffer);
+                buffer.position(buffer.position() + emailLength);
+                final byte[] json = new byte[length(buffer)];
+                buffer.get(json);
+                final Applicant applicant = objectMapper.readValue(json, Applicant.class);
+                applicant.setApplicantId(applicantId);
+                applicants.add(applicant);
+            }
+            return new Snapshot(writtenAtMillis, applicants);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated applicant snapshot: " + file, e);
+        }
+    }
+
+    private int length(ByteBuffer buffer) throws IOException {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Corrupt applicant snapshot, field of " + length + " bytes at position "
+                    + (buffer.position() - Integer.BYTES) + ": " + file);
+        }
+        return length;
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    public record Snapshot(long writtenAtMillis, List<Applicant> applicants) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.repository.ApplicantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms {@link ApplicantCache} from the snapshot file once all beans exist, i.e. before the web server takes traffic,
+ * then checks every loaded applicant against the database in the background.
+ * While running it rewrites the snapshot every {@code write-interval}, and one last time on shutdown.
+ */
+@Slf4j
+public class ApplicantSnapshotManager implements SmartInitializingSingleton, SmartLifecycle {
+
+    private final ApplicantSnapshotFile snapshotFile;
+    private final ApplicantCache cache;
+    private final ApplicantRepository repository;
+    private final SnapshotProperties properties;
+    private final Clock clock;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public ApplicantSnapshotManager(ApplicantSnapshotFile snapshotFile, ApplicantCache cache, ApplicantRepository repository,
+                                    SnapshotProperties properties, Clock clock) {
+        this.snapshotFile = snapshotFile;
+        this.cache = cache;
+        this.repository = repository;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        final List<Applicant> loaded = load();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "applicant-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!loaded.isEmpty()) {
+            scheduler.execute(() -> validate(loaded));
+        }
+    }
+
+    List<Applicant> load() {
+        if (!snapshotFile.exists()) {
+            return List.of();
+        }
+        final long start = System.nanoTime();
+        try {
+            final ApplicantSnapshotFile.Snapshot snapshot = snapshotFile.read();
+            final Duration age = Duration.ofMillis(clock.millis() - snapshot.writtenAtMillis());
+            if (age.compareTo(properties.getMaxAge()) > 0) {
+                log.info("Ignoring applicant snapshot written {} ago", age);
+                return List.of();
+            }
+            snapshot.applicants().forEach(cache::put);
+            log.info("Warmed applicant cache with {} applicants from snapshot in {} ms",
+                    snapshot.applicants().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return snapshot.applicants();
+        } catch (IOException | RuntimeException e) {
+            //a damaged snapshot must never keep the application from starting
+            log.warn("Can't read applicant snapshot, starting cold: {}", e.toString());
+            cache.clear();
+            return List.of();
+        }
+    }
+
+    /**
+     * Replaces loaded applicants that changed since the snapshot and drops the deleted ones.
+     */
+    void validate(List<Applicant> loaded) {
+        int stale = 0;
+        for (Applicant applicant : loaded) {
+            try {
+                final long stamp = cache.stamp();
+                final Optional<Applicant> current = repository.findById(applicant.getApplicantId());
+                if (current.isEmpty()) {
+                    cache.evict(applicant.getApplicantId());
+                    stale++;
+                } else if (!current.get().equals(applicant)) {
+                    cache.putIfNotEvictedSince(current.get(), stamp);
+                    stale++;
+                }
+            } catch (RuntimeException e) {
+                //an applicant we can't check is not served from the snapshot
+                log.debug("Can't validate snapshot applicant {}: {}", applicant.getApplicantId(), e.getMessage());
+                cache.evict(applicant.getApplicantId());
+            }
+        }
+        log.info("Validated {} snapshot applicants against the database, {} were stale", loaded.size(), stale);
+    }
+
+    void write() {
+        try {
+            final List<Applicant> hottest = cache.hottest(properties.getMaxEntries());
+            snapshotFile.write(hottest, clock.millis());
+            log.debug("Wrote applicant snapshot with {} applicants", hottest.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can't write applicant snapshot: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        final long interval = properties.getWriteInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::write, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        write();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,38 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Clock;
+
+/**
+ * Applicant cache, serving reads only with {@code workshop.cache.enabled=true}.
+ * Can't be combined with replication.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+
+    /**
+     * Cache hits skip the replica routing, and a row read from a lagging replica would be served for the whole ttl,
+     * even to a client pinned to the primary after deleting it.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor cacheWithoutReplication(Environment environment) {
+        return beanFactory -> {
+            if (environment.getProperty("workshop.cache.enabled", Boolean.class, false)
+                    && environment.getProperty("workshop.replication.enabled", Boolean.class, false)) {
+                throw new IllegalStateException(
+                        "workshop.cache.enabled and workshop.replication.enabled can't both be true, cached replica reads would outlive max-lag");
+            }
+        };
+    }
+
+    @Bean
+    public ApplicantCache applicantCache(CacheProperties properties) {
+        return new ApplicantCache(properties.isEnabled(), properties.getMaxEntries(), properties.getTtl(), Clock.systemUTC());
+    }
+}
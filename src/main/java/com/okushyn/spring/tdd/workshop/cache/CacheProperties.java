@@ -0,0 +1,27 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workshop.cache")
+public class CacheProperties {
+
+    /**
+     * Serves applicant reads from memory. Off by default: with several instances a read may return
+     * an applicant another instance changed or deleted, for up to {@code ttl}. Refused together with replication.
+     */
+    private boolean enabled;
+
+    /**
+     * Above this the least recently used tenth is dropped.
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * How long an applicant is served from memory, bounds how stale a read can be across instances.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
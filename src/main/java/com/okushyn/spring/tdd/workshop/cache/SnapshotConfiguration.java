@@ -0,0 +1,31 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.repository.ApplicantRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Warm start of the applicant cache, enabled with {@code workshop.snapshot.enabled=true} on top of {@code workshop.cache.enabled=true}.
+ * The snapshot lives in {@code workshop.snapshot.file}, which should be on local disk of the instance.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "workshop.snapshot", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfiguration {
+
+    @Bean
+    public ApplicantSnapshotManager applicantSnapshotManager(SnapshotProperties properties, CacheProperties cacheProperties,
+                                                             ObjectMapper objectMapper, ApplicantCache cache,
+                                                             ApplicantRepository repository) {
+        if (!cacheProperties.isEnabled()) {
+            throw new IllegalStateException("workshop.snapshot.enabled needs workshop.cache.enabled=true, there is no cache to warm");
+        }
+        return new ApplicantSnapshotManager(new ApplicantSnapshotFile(properties.getFile(), objectMapper),
+                cache, repository, properties, Clock.systemUTC());
+    }
+}
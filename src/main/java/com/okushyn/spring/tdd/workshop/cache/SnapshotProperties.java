@@ -0,0 +1,25 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workshop.snapshot")
+public class SnapshotProperties {
+
+    private boolean enabled;
+
+    private Path file = Path.of("applicant-snapshot.bin");
+
+    private Duration writeInterval = Duration.ofMinutes(1);
+
+    /**
+     * Older snapshots are ignored on startup, validating them would cost more than loading from scratch.
+     */
+    private Duration maxAge = Duration.ofHours(1);
+
+    private int maxEntries = 10_000;
+}
@@ -1,11 +1,15 @@
 package com.okushyn.spring.tdd.workshop.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.idempotency.IdempotencyStore;
+import com.okushyn.spring.tdd.workshop.idempotency.IdempotentResponse;
 import com.okushyn.spring.tdd.workshop.model.*;
 import com.okushyn.spring.tdd.workshop.service.ApplicantService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
@@ -14,17 +18,39 @@ import java.net.URI;
 @RequestMapping("/applicants")
 public class ApplicantController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private ApplicantService applicantService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseEntity<Applicant> createApplicant(final @Valid @RequestBody Applicant applicant) throws Exception {
+    public ResponseEntity<Applicant> createApplicant(final @Valid @RequestBody Applicant applicant,
+                                                     final @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws Exception {
+        if (idempotencyKey == null) {
+            return create(applicant);
+        }
+        //retries with the same key get the first response without touching the service again
+        return idempotencyStore.execute(idempotencyKey, fingerprint(applicant), () -> IdempotentResponse.of(create(applicant)))
+                .toResponseEntity();
+    }
+
+    private ResponseEntity<Applicant> create(final Applicant applicant) {
         final Applicant savedApplicant = applicantService.save(applicant);
-        return ResponseEntity.created(new URI("applicants/" + savedApplicant.getApplicantId()))
+        return ResponseEntity.created(URI.create("applicants/" + savedApplicant.getApplicantId()))
                 .body(applicant);
     }
 
+    private String fingerprint(final Applicant applicant) throws Exception {
+        return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(applicant));
+    }
+
     @GetMapping(params = {"email"}, path = "")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<Applicant> getApplicant(final @RequestParam("email") String email) {
@@ -0,0 +1,8 @@
+package com.okushyn.spring.tdd.workshop.exceptions;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
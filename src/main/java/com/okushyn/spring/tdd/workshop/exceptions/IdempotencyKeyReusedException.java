@@ -0,0 +1,8 @@
+package com.okushyn.spring.tdd.workshop.exceptions;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
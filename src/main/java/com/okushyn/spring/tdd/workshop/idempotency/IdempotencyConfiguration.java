@@ -0,0 +1,36 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Store behind the {@code Idempotency-Key} header of {@code POST /applicants}.
+ * In memory by default, {@code workshop.idempotency.store=jdbc} shares it between instances through the database.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "workshop.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+    public IdempotencyStore inMemoryIdempotencyStore(IdempotencyProperties properties) {
+        return new InMemoryIdempotencyStore(properties.getTtl(), properties.getMaxEntries(), properties.getWaitTimeout(), Clock.systemUTC());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "workshop.idempotency", name = "store", havingValue = "jdbc")
+    public IdempotencyStore jdbcIdempotencyStore(DataSource dataSource, ObjectMapper objectMapper, IdempotencyProperties properties) {
+        new ResourceDatabasePopulator(new ClassPathResource("db/idempotency-schema.sql")).execute(dataSource);
+        return new JdbcIdempotencyStore(new JdbcTemplate(dataSource), objectMapper,
+                properties.getTtl(), properties.getWaitTimeout(), properties.getLease(), Clock.systemUTC());
+    }
+}
@@ -0,0 +1,39 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workshop.idempotency")
+public class IdempotencyProperties {
+
+    private Store store = Store.MEMORY;
+
+    /**
+     * How long a response is replayed for its key.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Upper bound of keys kept by the in-memory store, the oldest ones are evicted first.
+     */
+    private int maxEntries = 10_000;
+
+    /**
+     * How long a request waits for the first request with the same key before giving up with 409.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long the jdbc store keeps a key claimed for the request running it. Once it runs out, e.g. because
+     * the claiming instance died, the next request with the key runs instead. Should exceed the slowest request.
+     */
+    private Duration lease = Duration.ofMinutes(1);
+
+    public enum Store {
+        MEMORY,
+        JDBC
+    }
+}
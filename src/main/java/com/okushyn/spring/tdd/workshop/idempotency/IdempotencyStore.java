@@ -0,0 +1,17 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyStore {
+
+    /**
+     * Runs {@code action} for the first request with the given key and stores its response.
+     * Later requests with the key get the stored response; requests arriving while the first one is running
+     * wait for it. If the action fails, nothing is stored and the key can be used again.
+     *
+     * @param fingerprint identifies the request payload, a key may not be reused for a different payload
+     * @throws com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyReusedException if the fingerprint differs from the stored one
+     * @throws com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyInProgressException if the first request didn't finish in time
+     */
+    IdempotentResponse execute(String key, String fingerprint, Supplier<IdempotentResponse> action);
+}
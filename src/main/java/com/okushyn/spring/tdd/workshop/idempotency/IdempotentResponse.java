@@ -0,0 +1,27 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+
+/**
+ * Response of the first request made with an idempotency key, replayed to every retry.
+ */
+public record IdempotentResponse(int status, String location, Applicant body) {
+
+    public static IdempotentResponse of(ResponseEntity<Applicant> response) {
+        final URI location = response.getHeaders().getLocation();
+        return new IdempotentResponse(response.getStatusCode().value(),
+                location == null ? null : location.toString(),
+                response.getBody());
+    }
+
+    public ResponseEntity<Applicant> toResponseEntity() {
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+        if (location != null) {
+            builder.location(URI.create(location));
+        }
+        return builder.body(body);
+    }
+}
@@ -0,0 +1,132 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyInProgressException;
+import com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyReusedException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps responses on the heap, bounded by {@code maxEntries} and evicted after {@code ttl}.
+ * Only deduplicates requests reaching the same instance.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    //insertion order, so the oldest entry is always at the head
+    private final Deque<Entry> order = new ArrayDeque<>();
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Duration waitTimeout;
+    private final Clock clock;
+
+    public InMemoryIdempotencyStore(Duration ttl, int maxEntries, Duration waitTimeout, Clock clock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.waitTimeout = waitTimeout;
+        this.clock = clock;
+    }
+
+    @Override
+    public IdempotentResponse execute(String key, String fingerprint, Supplier<IdempotentResponse> action) {
+        final long deadline = clock.millis() + waitTimeout.toMillis();
+        while (true) {
+            final long now = clock.millis();
+            final Entry mine = new Entry(key, fingerprint, new CompletableFuture<>(), now);
+            Entry existing = entries.putIfAbsent(key, mine);
+            while (existing != null && isExpired(existing, now)) {
+                entries.remove(key, existing);
+                existing = entries.putIfAbsent(key, mine);
+            }
+
+            if (existing == null) {
+                return run(mine, action, now);
+            }
+            final Optional<IdempotentResponse> response = awaitResponse(existing, fingerprint, deadline);
+            if (response.isPresent()) {
+                return response.get();
+            }
+            //the first request failed and released the key, try to claim it again
+        }
+    }
+
+    private IdempotentResponse run(Entry mine, Supplier<IdempotentResponse> action, long now) {
+        synchronized (order) {
+            order.addLast(mine);
+        }
+        evict(now);
+        try {
+            final IdempotentResponse response = action.get();
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            //nothing worth replaying, a retry may run the action again
+            entries.remove(mine.key(), mine);
+            synchronized (order) {
+                order.remove(mine);
+            }
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the first request's response, empty if it failed
+     */
+    private Optional<IdempotentResponse> awaitResponse(Entry entry, String fingerprint, long deadline) {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException("Idempotency key " + entry.key() + " was already used for a different request");
+        }
+        try {
+            return Optional.of(entry.response().get(Math.max(0, deadline - clock.millis()), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Request with idempotency key " + entry.key() + " is still in progress");
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Interrupted while waiting for idempotency key " + entry.key());
+        }
+    }
+
+    private void evict(long now) {
+        synchronized (order) {
+            final Iterator<Entry> oldestFirst = order.iterator();
+            while (oldestFirst.hasNext()) {
+                final Entry entry = oldestFirst.next();
+                final boolean expired = isExpired(entry, now);
+                if (!expired && order.size() <= maxEntries) {
+                    break;
+                }
+                //an entry still in progress is kept, otherwise its retries would run the action a second time
+                if (!expired && !entry.response().isDone()) {
+                    continue;
+                }
+                oldestFirst.remove();
+                entries.remove(entry.key(), entry);
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt() >= ttl.toMillis();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry(String key, String fingerprint, CompletableFuture<IdempotentResponse> response, long createdAt) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyInProgressException;
+import com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyReusedException;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps responses in the {@code idempotency_record} table, so retries are deduplicated across instances.
+ * The first request claims the key by inserting a row without status, the others poll that row until
+ * the response is written. A claim is leased: once the lease ran out, e.g. because the claiming instance died,
+ * the next request takes the key over. Rows older than {@code ttl} are purged at most once a minute.
+ */
+@Slf4j
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration lease;
+    private final Clock clock;
+    private final AtomicLong lastPurge = new AtomicLong();
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, Duration ttl, Duration waitTimeout,
+                                Duration lease, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.lease = lease;
+        this.clock = clock;
+    }
+
+    @Override
+    public IdempotentResponse execute(String key, String fingerprint, Supplier<IdempotentResponse> action) {
+        purgeExpired();
+        final long deadline = clock.millis() + waitTimeout.toMillis();
+        while (true) {
+            final String claimToken = UUID.randomUUID().toString();
+            if (claim(key, fingerprint, claimToken)) {
+                return runAndStore(key, claimToken, action);
+            }
+
+            final List<StoredRecord> stored = jdbcTemplate.query("""
+                            select fingerprint, status, location, body, claim_token, lease_until_millis, created_at_millis
+                            from idempotency_record where idempotency_key = ?""",
+                    (rs, rowNum) -> new StoredRecord(rs.getString("fingerprint"), (Integer) rs.getObject("status"),
+                            rs.getString("location"), rs.getString("body"), rs.getString("claim_token"),
+                            rs.getLong("lease_until_millis"), rs.getLong("created_at_millis")),
+                    key);
+            if (stored.isEmpty()) {
+                //the first request failed and released the key, try to claim it again
+                continue;
+            }
+
+            final StoredRecord storedRecord = stored.get(0);
+            final long now = clock.millis();
+            if (now - storedRecord.createdAtMillis() >= ttl.toMillis()) {
+                jdbcTemplate.update("delete from idempotency_record where idempotency_key = ? and created_at_millis = ?",
+                        key, storedRecord.createdAtMillis());
+                continue;
+            }
+            if (!storedRecord.fingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException("Idempotency key " + key + " was already used for a different request");
+            }
+            if (storedRecord.status() != null) {
+                return toResponse(storedRecord);
+            }
+            if (now >= storedRecord.leaseUntilMillis()) {
+                if (takeOver(key, storedRecord.claimToken(), claimToken)) {
+                    log.warn("Lease on idempotency key {} ran out before the response was stored, running the request again", key);
+                    return runAndStore(key, claimToken, action);
+                }
+                //another request took it over first
+                continue;
+            }
+            if (now >= deadline) {
+                throw new IdempotencyKeyInProgressException("Request with idempotency key " + key + " is still in progress");
+            }
+            pause(key);
+        }
+    }
+
+    private boolean claim(String key, String fingerprint, String claimToken) {
+        final long now = clock.millis();
+        try {
+            jdbcTemplate.update("""
+                            insert into idempotency_record (idempotency_key, fingerprint, claim_token, lease_until_millis, created_at_millis)
+                            values (?, ?, ?, ?, ?)""",
+                    key, fingerprint, claimToken, now + lease.toMillis(), now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the expired claim, only one of the requests racing for it succeeds.
+     */
+    private boolean takeOver(String key, String expiredClaimToken, String claimToken) {
+        return jdbcTemplate.update("""
+                        update idempotency_record set claim_token = ?, lease_until_millis = ?
+                        where idempotency_key = ? and claim_token = ? and status is null""",
+                claimToken, clock.millis() + lease.toMillis(), key, expiredClaimToken) == 1;
+    }
+
+    /**
+     * Stores the response only while the claim is still ours, a request that lost its lease leaves the key to its successor.
+     */
+    private IdempotentResponse runAndStore(String key, String claimToken, Supplier<IdempotentResponse> action) {
+        final IdempotentResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            jdbcTemplate.update("delete from idempotency_record where idempotency_key = ? and claim_token = ?", key, claimToken);
+            throw e;
+        }
+        try {
+            jdbcTemplate.update("""
+                            update idempotency_record set status = ?, location = ?, body = ?
+                            where idempotency_key = ? and claim_token = ?""",
+                    response.status(), response.location(), objectMapper.writeValueAsString(response.body()), key, claimToken);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't store response for idempotency key " + key, e);
+        }
+        return response;
+    }
+
+    private IdempotentResponse toResponse(StoredRecord storedRecord) {
+        try {
+            final Applicant body = storedRecord.body() == null ? null : objectMapper.readValue(storedRecord.body(), Applicant.class);
+            return new IdempotentResponse(storedRecord.status(), storedRecord.location(), body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't read stored response", e);
+        }
+    }
+
+    private void purgeExpired() {
+        final long now = clock.millis();
+        final long previous = lastPurge.get();
+        if (now - previous >= PURGE_INTERVAL_MILLIS && lastPurge.compareAndSet(previous, now)) {
+            jdbcTemplate.update("delete from idempotency_record where created_at_millis < ?", now - ttl.toMillis());
+        }
+    }
+
+    private static void pause(String key) {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Interrupted while waiting for idempotency key " + key);
+        }
+    }
+
+    private record StoredRecord(String fingerprint, Integer status, String location, String body,
+                                String claimToken, long leaseUntilMillis, long createdAtMillis) {
+    }
+}
@@ -1,8 +1,8 @@
 package com.okushyn.spring.tdd.workshop.model;
 
+import com.okushyn.spring.tdd.workshop.sharding.ShardedSequence;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -18,7 +18,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Applicant {
     @Id
-    @GeneratedValue
+    @ShardedSequence(name = "applicant_seq")
     private Long applicantId;
 
     @Valid
@@ -0,0 +1,81 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Keeps a client on the primary for a while after it sent a write, so it never reads a replica that hasn't caught up
+ * with its own change. The deadline travels in a cookie, so it works no matter which instance serves the next request.
+ * The cookie is client controlled: a deadline further away than one window was never issued here and is ignored,
+ * so an edited cookie can't pin a client to the primary for good.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String PRIMARY_UNTIL_COOKIE = "workshop-primary-until";
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            HttpMethod.POST.name(), HttpMethod.PUT.name(), HttpMethod.PATCH.name(), HttpMethod.DELETE.name());
+
+    private final Duration window;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final long now = clock.millis();
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            //set before the chain runs, the response is usually committed when it returns
+            final Cookie cookie = new Cookie(PRIMARY_UNTIL_COOKIE, String.valueOf(now + window.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+            ReadYourWritesHolder.pinToPrimary();
+        } else if (isPinned(primaryUntil(request), now)) {
+            ReadYourWritesHolder.pinToPrimary();
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWritesHolder.clear();
+        }
+    }
+
+    private boolean isPinned(long primaryUntil, long now) {
+        return primaryUntil > now && primaryUntil <= now + window.toMillis();
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        return Arrays.stream(request.getCookies())
+                .filter(cookie -> PRIMARY_UNTIL_COOKIE.equals(cookie.getName()))
+                .mapToLong(cookie -> {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                })
+                .max()
+                .orElse(0);
+    }
+}
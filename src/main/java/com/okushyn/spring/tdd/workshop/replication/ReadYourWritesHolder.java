@@ -0,0 +1,24 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+/**
+ * Marks the current request as one that has to read from the primary, set by {@link ReadYourWritesFilter}.
+ */
+public final class ReadYourWritesHolder {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWritesHolder() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+}
@@ -0,0 +1,48 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+
+/**
+ * Read replica and its current place in the rotation. Starts out of rotation until the first health check passes.
+ */
+public class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean healthy;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    /**
+     * @return connections currently borrowed from the replica's pool, 0 when the pool can't tell
+     */
+    int activeConnections() {
+        if (dataSource instanceof HikariDataSource hikari) {
+            final HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a heartbeat to the primary and puts every replica in or out of rotation depending on how far
+ * the heartbeat it has replicated is behind the one the primary held before this check.
+ * The beat written by this check can't have been replicated yet, so a caught up replica shows no lag
+ * whatever the check interval. A replica that can't be queried is out of rotation as well.
+ */
+@Slf4j
+public class ReplicaHealthMonitor implements SmartLifecycle {
+
+    private static final int HEARTBEAT_ID = 1;
+
+    private final JdbcTemplate primary;
+    private final ReplicaSelector replicaSelector;
+    private final Duration maxLag;
+    private final Duration interval;
+    private final Clock clock;
+
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaHealthMonitor(DataSource primary, ReplicaSelector replicaSelector, Duration maxLag, Duration interval, Clock clock) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicaSelector = replicaSelector;
+        this.maxLag = maxLag;
+        this.interval = interval;
+        this.clock = clock;
+    }
+
+    public void check() {
+        final long now = clock.millis();
+        final long expectedBeat = previousBeat().orElse(now);
+        try {
+            if (primary.update("update replication_heartbeat set beat_at_millis = ? where id = ?", now, HEARTBEAT_ID) == 0) {
+                primary.update("insert into replication_heartbeat (id, beat_at_millis) values (?, ?)", HEARTBEAT_ID, now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Can't write replication heartbeat to the primary: {}", e.getMessage());
+        }
+
+        for (Replica replica : replicaSelector.getReplicas()) {
+            final boolean healthy = isHealthy(replica, expectedBeat);
+            if (healthy != replica.isHealthy()) {
+                log.info("Replica {} is {} rotation", replica.getName(), healthy ? "back in" : "taken out of");
+            }
+            replica.setHealthy(healthy);
+        }
+    }
+
+    /**
+     * @return beat the replicas should have caught up to, written by the last check of any instance
+     */
+    private OptionalLong previousBeat() {
+        try {
+            return primary.queryForList("select beat_at_millis from replication_heartbeat where id = ?", Long.class, HEARTBEAT_ID)
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .findFirst();
+        } catch (DataAccessException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private boolean isHealthy(Replica replica, long expectedBeat) {
+        try {
+            final Long beatAt = new JdbcTemplate(replica.getDataSource()).queryForObject(
+                    "select beat_at_millis from replication_heartbeat where id = ?", Long.class, HEARTBEAT_ID);
+            final long lag = expectedBeat - (beatAt == null ? 0 : beatAt);
+            if (lag > maxLag.toMillis()) {
+                log.debug("Replica {} lags {} ms behind the primary", replica.getName(), lag);
+                return false;
+            }
+            return true;
+        } catch (DataAccessException e) {
+            log.debug("Replica {} failed the health check: {}", replica.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "replica-health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void checkSafely() {
+        try {
+            check();
+        } catch (RuntimeException e) {
+            //an exception would cancel the schedule
+            log.error("Replica health check failed", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Serves read-only transactions from a replica and everything else from the primary.
+ * Requests pinned by {@link ReadYourWritesFilter} always read from the primary.
+ * <p>
+ * Has to sit behind a {@code LazyConnectionDataSourceProxy}: the read-only flag of a transaction is only known
+ * after the transaction manager asked for a connection.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaSelector replicaSelector;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaSelector replicaSelector) {
+        this.primary = primary;
+        this.replicaSelector = replicaSelector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Replica replica = readReplica();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getDataSource().getConnection();
+        } catch (SQLException e) {
+            //don't wait for the next health check, the read can still be served by the primary
+            log.warn("Taking replica {} out of rotation, can't get a connection: {}", replica.getName(), e.getMessage());
+            replica.setHealthy(false);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        final Replica replica = readReplica();
+        if (replica == null) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return replica.getDataSource().getConnection(username, password);
+        } catch (SQLException e) {
+            log.warn("Taking replica {} out of rotation, can't get a connection: {}", replica.getName(), e.getMessage());
+            replica.setHealthy(false);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private Replica readReplica() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWritesHolder.isPinnedToPrimary()) {
+            return null;
+        }
+        return replicaSelector.select();
+    }
+}
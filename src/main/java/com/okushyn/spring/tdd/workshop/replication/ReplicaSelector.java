@@ -0,0 +1,52 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the replica for the next read among the healthy ones.
+ */
+public class ReplicaSelector {
+
+    private final List<Replica> replicas;
+    private final ReplicationProperties.LoadBalancing loadBalancing;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaSelector(List<Replica> replicas, ReplicationProperties.LoadBalancing loadBalancing) {
+        this.replicas = List.copyOf(replicas);
+        this.loadBalancing = loadBalancing;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return the replica to read from, or null when none is in rotation and the primary has to serve the read
+     */
+    public Replica select() {
+        final List<Replica> healthy = replicas.stream()
+                .filter(Replica::isHealthy)
+                .toList();
+        if (healthy.isEmpty()) {
+            return null;
+        }
+
+        final int start = Math.floorMod(next.getAndIncrement(), healthy.size());
+        if (loadBalancing == ReplicationProperties.LoadBalancing.ROUND_ROBIN) {
+            return healthy.get(start);
+        }
+        //scanning from the round robin position lets equally loaded replicas take turns
+        Replica leastLoaded = healthy.get(start);
+        int lowestLoad = leastLoaded.activeConnections();
+        for (int i = 1; i < healthy.size(); i++) {
+            final Replica candidate = healthy.get((start + i) % healthy.size());
+            final int load = candidate.activeConnections();
+            if (load < lowestLoad) {
+                leastLoaded = candidate;
+                lowestLoad = load;
+            }
+        }
+        return leastLoaded;
+    }
+}
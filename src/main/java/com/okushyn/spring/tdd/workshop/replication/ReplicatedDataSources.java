@@ -0,0 +1,40 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Physical primary and replica datasources.
+ */
+public class ReplicatedDataSources implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+
+    public ReplicatedDataSources(DataSource primary, List<Replica> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
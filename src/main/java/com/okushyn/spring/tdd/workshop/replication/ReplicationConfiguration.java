@@ -0,0 +1,100 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, enabled with {@code workshop.replication.enabled=true}:
+ * <pre>
+ * workshop.replication.primary.url=jdbc:h2:mem:primary
+ * workshop.replication.replicas[0].url=jdbc:h2:mem:replica0
+ * workshop.replication.load-balancing=least_loaded
+ * </pre>
+ * {@code @Transactional(readOnly = true)} methods read from a replica, everything else goes to the primary.
+ * Can't be combined with sharding.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "workshop.replication", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicationProperties.class)
+public class ReplicationConfiguration {
+
+    /**
+     * Sharding replaces the datasource too; fails before the two {@code @Primary} datasources clash.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor replicationWithoutSharding(Environment environment) {
+        return beanFactory -> {
+            if (environment.getProperty("workshop.sharding.enabled", Boolean.class, false)) {
+                throw new IllegalStateException(
+                        "workshop.replication.enabled and workshop.sharding.enabled can't both be true, replicated shards are not supported");
+            }
+        };
+    }
+
+    @Bean
+    public ReplicatedDataSources replicatedDataSources(ReplicationProperties properties) {
+        final DataSource primary = build(properties.getPrimary());
+        new ResourceDatabasePopulator(new ClassPathResource("db/replication-heartbeat.sql")).execute(primary);
+
+        final List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            final DataSource replica = build(properties.getReplicas().get(i));
+            if (properties.isInitializeReplicaSchema()) {
+                new ResourceDatabasePopulator(
+                        new ClassPathResource("db/applicant-schema.sql"),
+                        new ClassPathResource("db/replication-heartbeat.sql")).execute(replica);
+            }
+            replicas.add(new Replica("replica-" + i, replica));
+        }
+        return new ReplicatedDataSources(primary, replicas);
+    }
+
+    @Bean
+    public ReplicaSelector replicaSelector(ReplicatedDataSources replicatedDataSources, ReplicationProperties properties) {
+        return new ReplicaSelector(replicatedDataSources.getReplicas(), properties.getLoadBalancing());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicatedDataSources replicatedDataSources, ReplicaSelector replicaSelector) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicatedDataSources.getPrimary(), replicaSelector));
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(ReplicatedDataSources replicatedDataSources, ReplicaSelector replicaSelector,
+                                                     ReplicationProperties properties) {
+        return new ReplicaHealthMonitor(replicatedDataSources.getPrimary(), replicaSelector,
+                properties.getMaxLag(), properties.getHealthCheckInterval(), Clock.systemUTC());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicationProperties properties) {
+        final FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.getReadYourWritesWindow(), Clock.systemUTC()));
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    private static DataSource build(ReplicationProperties.Database database) {
+        return DataSourceBuilder.create()
+                .url(database.getUrl())
+                .username(database.getUsername())
+                .password(database.getPassword())
+                .build();
+    }
+}
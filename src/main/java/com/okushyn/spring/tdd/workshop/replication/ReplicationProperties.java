@@ -0,0 +1,51 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "workshop.replication")
+public class ReplicationProperties {
+
+    private boolean enabled;
+
+    private Database primary = new Database();
+
+    private List<Database> replicas = new ArrayList<>();
+
+    private LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+
+    /**
+     * Replicas lagging further behind the primary are taken out of rotation until they catch up.
+     * Lag is measured against the previous heartbeat, so it is noticed up to one health check interval late.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(2);
+
+    /**
+     * How long a client keeps reading from the primary after sending a write request.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /**
+     * Creates the applicant schema on the replicas too. Only meant for local databases standing in for replicas.
+     */
+    private boolean initializeReplicaSchema;
+
+    public enum LoadBalancing {
+        ROUND_ROBIN,
+        LEAST_LOADED
+    }
+
+    @Data
+    public static class Database {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+    }
+}
@@ -2,9 +2,16 @@ package com.okushyn.spring.tdd.workshop.repository;
 
 import com.okushyn.spring.tdd.workshop.model.Applicant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface ApplicantRepository extends JpaRepository<Applicant, Long> {
-    Optional<Applicant> findByEmail(String email);
+
+    //email lives in embedded contactPoint.electronicAddress, so it can't be derived from the method name
+    @Transactional(readOnly = true)
+    @Query("select a from Applicant a where a.contactPoint.electronicAddress.email = :email")
+    Optional<Applicant> findByEmail(@Param("email") String email);
 }
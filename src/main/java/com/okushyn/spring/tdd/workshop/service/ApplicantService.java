@@ -1,5 +1,6 @@
 package com.okushyn.spring.tdd.workshop.service;
 
+import com.okushyn.spring.tdd.workshop.cache.ApplicantCache;
 import com.okushyn.spring.tdd.workshop.exceptions.ApplicantAlreadyExistsException;
 import com.okushyn.spring.tdd.workshop.exceptions.ApplicantNotExistsException;
 import com.okushyn.spring.tdd.workshop.model.Applicant;
@@ -8,8 +9,10 @@ import com.okushyn.spring.tdd.workshop.model.ElectronicAddress;
 import com.okushyn.spring.tdd.workshop.repository.ApplicantRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class ApplicantService {
@@ -17,6 +20,10 @@ public class ApplicantService {
     @Autowired
     ApplicantRepository repository;
 
+    @Autowired
+    ApplicantCache cache;
+
+    @Transactional
     public Applicant save(Applicant applicant) {
 
         Optional<Applicant> byEmail = repository.findByEmail(Optional.of(applicant)
@@ -29,12 +36,17 @@ public class ApplicantService {
             throw new ApplicantAlreadyExistsException("Applicant already exists");
         }
 
-        return repository.save(applicant);
+        final Applicant savedApplicant = repository.save(applicant);
+        cache.putAfterCommit(savedApplicant);
+        return savedApplicant;
     }
 
+    //reads are not transactional here, a cache hit shouldn't take a connection;
+    //the repository runs the lookups in read-only transactions
     public Applicant getByEmail(String email) {
 
-        Optional<Applicant> applicant = repository.findByEmail(email);
+        Optional<Applicant> applicant = cache.getByEmail(email)
+                .or(() -> readThrough(() -> repository.findByEmail(email)));
 
         if (applicant.isEmpty()) {
             throw new ApplicantNotExistsException("Applicant not with email " + email + " is unknown");
@@ -43,15 +55,35 @@ public class ApplicantService {
     }
 
     public Applicant getById(Long applicantId) {
-        Optional<Applicant> applicant = repository.findById(applicantId);
+        Optional<Applicant> applicant = cache.getById(applicantId)
+                .or(() -> readThrough(() -> repository.findById(applicantId)));
         if (applicant.isEmpty()) {
             throw new ApplicantNotExistsException("Applicant with id " + applicantId + " is unknown");
         }
         return applicant.get();
     }
 
+    @Transactional
     public void deleteApplicantById(Long applicantId) {
-        getById(applicantId);
+        //checked against the database, the cache may still hold an applicant deleted elsewhere
+        final Optional<Applicant> existing = repository.findById(applicantId);
+        if (existing.isEmpty()) {
+            cache.evict(applicantId);
+            throw new ApplicantNotExistsException("Applicant with id " + applicantId + " is unknown");
+        }
         repository.deleteById(applicantId);
+        cache.evictAfterCommit(applicantId);
+        //an applicant moved to another shard is cached under its new id
+        final Long currentId = existing.get().getApplicantId();
+        if (currentId != null && !currentId.equals(applicantId)) {
+            cache.evictAfterCommit(currentId);
+        }
+    }
+
+    private Optional<Applicant> readThrough(Supplier<Optional<Applicant>> query) {
+        final long stamp = cache.stamp();
+        final Optional<Applicant> applicant = query.get();
+        applicant.ifPresent(found -> cache.putIfNotEvictedSince(found, stamp));
+        return applicant;
     }
 }
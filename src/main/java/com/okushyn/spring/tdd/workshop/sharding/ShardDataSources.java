@@ -0,0 +1,41 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Physical shard datasources, indexed by shard number.
+ */
+public class ShardDataSources implements DisposableBean {
+
+    private final List<DataSource> shards;
+
+    public ShardDataSources(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard has to be configured");
+        }
+        if (shards.size() > ShardIds.MAX_SHARDS) {
+            throw new IllegalArgumentException("At most " + ShardIds.MAX_SHARDS + " shards are supported");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public int count() {
+        return shards.size();
+    }
+
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource shard : shards) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
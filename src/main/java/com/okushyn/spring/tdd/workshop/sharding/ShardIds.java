@@ -0,0 +1,56 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+/**
+ * Applicant ids carry their shard number in the lowest {@link #SHARD_BITS} bits, so a lookup by id needs a single shard.
+ */
+public final class ShardIds {
+
+    public static final int SHARD_BITS = 10;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private static final long SHARD_MASK = MAX_SHARDS - 1;
+
+    private ShardIds() {
+    }
+
+    public static long encode(int shard, long localId) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard " + shard + " is out of range");
+        }
+        return (localId << SHARD_BITS) | shard;
+    }
+
+    public static int shardOf(long applicantId) {
+        return (int) (applicantId & SHARD_MASK);
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach): appending a shard only moves the emails that now belong to the new shard,
+     * about {@code 1/shardCount} of them, instead of almost all of them as a modulo would.
+     */
+    public static int shardForEmail(String email, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count has to be positive");
+        }
+        //String.hashCode is specified by the JLS, so routing is stable across JVMs and restarts
+        long key = mix(email.hashCode());
+        long shard = -1;
+        long next = 0;
+        while (next < shardCount) {
+            shard = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((shard + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) shard;
+    }
+
+    private static long mix(long key) {
+        //spreads the 32 bit hash over all 64 bits, the jump hash draws from the high ones
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
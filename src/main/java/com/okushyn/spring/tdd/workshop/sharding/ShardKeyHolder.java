@@ -0,0 +1,24 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+/**
+ * Shard the current thread is working on. Read by {@link ShardRoutingDataSource} and {@link ShardedIdGenerator}.
+ */
+public final class ShardKeyHolder {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private ShardKeyHolder() {
+    }
+
+    public static Integer current() {
+        return CURRENT_SHARD.get();
+    }
+
+    static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+
+import java.util.List;
+
+/**
+ * Moves applicants whose email hashes to a different shard than the one they are stored on,
+ * which is what happens to about {@code 1/N} of the data when an N-th shard is appended.
+ * <p>
+ * A moved applicant gets a new id, because ids encode their shard. The source shard keeps an {@code applicant_forward}
+ * row from the old id to the new one, so ids clients already hold still resolve through {@link ShardRoutingAspect}.
+ * Forward rows are never removed.
+ * <p>
+ * Rows are copied and forwarded before they are deleted, so an interrupted run loses nothing and can simply be repeated.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ShardDataSources shards;
+    private final List<DataFieldMaxValueIncrementer> sequences;
+
+    /**
+     * @param sequences applicant sequence of every shard, in shard order
+     */
+    public ShardRebalancer(ShardDataSources shards, List<DataFieldMaxValueIncrementer> sequences) {
+        if (sequences.size() != shards.count()) {
+            throw new IllegalArgumentException("Expected a sequence for each of the " + shards.count() + " shards");
+        }
+        this.shards = shards;
+        this.sequences = sequences;
+    }
+
+    /**
+     * @return number of moved applicants
+     */
+    public int rebalance() {
+        int moved = 0;
+        for (int source = 0; source < shards.count(); source++) {
+            moved += rebalanceShard(source);
+        }
+        log.info("Shard rebalancing finished, {} applicants moved", moved);
+        return moved;
+    }
+
+    private int rebalanceShard(int source) {
+        final JdbcTemplate sourceJdbc = new JdbcTemplate(shards.shard(source));
+        int moved = 0;
+        long lastSeenId = Long.MIN_VALUE;
+        List<ApplicantRow> batch;
+        do {
+            batch = sourceJdbc.query("""
+                            select applicant_id, first_name, last_name, middle_name, email
+                            from applicant where applicant_id > ? order by applicant_id limit ?""",
+                    (rs, rowNum) -> new ApplicantRow(rs.getLong("applicant_id"), rs.getString("first_name"),
+                            rs.getString("last_name"), rs.getString("middle_name"), rs.getString("email")),
+                    lastSeenId, BATCH_SIZE);
+
+            for (ApplicantRow row : batch) {
+                lastSeenId = row.applicantId();
+                final int target = ShardIds.shardForEmail(row.email(), shards.count());
+                if (target != source) {
+                    move(row, sourceJdbc, target);
+                    moved++;
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+        return moved;
+    }
+
+    private void move(ApplicantRow row, JdbcTemplate sourceJdbc, int target) {
+        final JdbcTemplate targetJdbc = new JdbcTemplate(shards.shard(target));
+        //copied by an interrupted run already
+        final List<Long> copies = targetJdbc.queryForList(
+                "select applicant_id from applicant where email = ?", Long.class, row.email());
+
+        final long movedId;
+        if (copies.isEmpty()) {
+            movedId = ShardIds.encode(target, sequences.get(target).nextLongValue());
+            targetJdbc.update("insert into applicant (applicant_id, first_name, last_name, middle_name, email) values (?, ?, ?, ?, ?)",
+                    movedId, row.firstName(), row.lastName(), row.middleName(), row.email());
+        } else {
+            movedId = copies.get(0);
+        }
+
+        final Integer forwarded = sourceJdbc.queryForObject(
+                "select count(*) from applicant_forward where applicant_id = ?", Integer.class, row.applicantId());
+        if (forwarded == null || forwarded == 0) {
+            sourceJdbc.update("insert into applicant_forward (applicant_id, forwarded_to) values (?, ?)", row.applicantId(), movedId);
+        }
+        sourceJdbc.update("delete from applicant where applicant_id = ?", row.applicantId());
+    }
+
+    private record ApplicantRow(long applicantId, String firstName, String lastName, String middleName, String email) {
+    }
+}
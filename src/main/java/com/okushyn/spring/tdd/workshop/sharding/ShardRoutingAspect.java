@@ -0,0 +1,135 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.model.ContactPoint;
+import com.okushyn.spring.tdd.workshop.model.ElectronicAddress;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Picks the shard for every {@code ApplicantRepository} call from its first argument:
+ * new applicants and emails are routed by email hash, ids and stored applicants by the shard encoded in the id.
+ * Runs outside the repository transaction, so the connection is taken from the right shard.
+ * <p>
+ * Ids of applicants moved by {@link ShardRebalancer} are followed to their new shard:
+ * lookups only when they miss, other calls before they run.
+ */
+@Aspect
+public class ShardRoutingAspect {
+
+    private final ShardDataSources shards;
+
+    public ShardRoutingAspect(ShardDataSources shards) {
+        this.shards = shards;
+    }
+
+    @Around("target(com.okushyn.spring.tdd.workshop.repository.ApplicantRepository)")
+    public Object routeToShard(ProceedingJoinPoint joinPoint) throws Throwable {
+        final MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        if (ShardKeyHolder.current() != null || signature.getMethod().getDeclaringClass() == Object.class) {
+            return joinPoint.proceed();
+        }
+
+        final Object[] args = joinPoint.getArgs();
+        if (args.length > 0 && args[0] instanceof Long applicantId) {
+            return routeById(joinPoint, signature, applicantId);
+        }
+        return proceedOnShard(joinPoint, signature, args, resolveShard(args, signature));
+    }
+
+    private Object routeById(ProceedingJoinPoint joinPoint, MethodSignature signature, long applicantId) throws Throwable {
+        final boolean lookup = signature.getReturnType() == Optional.class || signature.getReturnType() == boolean.class;
+        long currentId = applicantId;
+        //an applicant moves at most once per appended shard, the bound only guards against broken forward rows
+        for (int hop = 0; hop <= shards.count(); hop++) {
+            if (lookup) {
+                //hits are the common case, forward rows are only read once the id missed
+                final Object result = proceedOnShard(joinPoint, signature, withId(joinPoint.getArgs(), currentId), ShardIds.shardOf(currentId));
+                final Long forwardedTo = isMiss(result) ? forwardOf(currentId) : null;
+                if (forwardedTo == null) {
+                    return result;
+                }
+                currentId = forwardedTo;
+            } else {
+                final Long forwardedTo = forwardOf(currentId);
+                if (forwardedTo == null) {
+                    return proceedOnShard(joinPoint, signature, withId(joinPoint.getArgs(), currentId), ShardIds.shardOf(currentId));
+                }
+                currentId = forwardedTo;
+            }
+        }
+        throw new IllegalStateException("Forward rows of applicant " + applicantId + " form a cycle");
+    }
+
+    private Object proceedOnShard(ProceedingJoinPoint joinPoint, MethodSignature signature, Object[] args, int shard) throws Throwable {
+        if (shard >= shards.count()) {
+            //the id was never issued by this cluster, so there is nothing to find
+            return notFound(signature);
+        }
+
+        ShardKeyHolder.set(shard);
+        try {
+            return joinPoint.proceed(args);
+        } finally {
+            ShardKeyHolder.set(null);
+        }
+    }
+
+    private Long forwardOf(long applicantId) {
+        final int shard = ShardIds.shardOf(applicantId);
+        if (shard >= shards.count()) {
+            return null;
+        }
+        final List<Long> forwardedTo = new JdbcTemplate(shards.shard(shard))
+                .queryForList("select forwarded_to from applicant_forward where applicant_id = ?", Long.class, applicantId);
+        return forwardedTo.isEmpty() ? null : forwardedTo.get(0);
+    }
+
+    private int resolveShard(Object[] args, MethodSignature signature) {
+        final Object key = args.length > 0 ? args[0] : null;
+        if (key instanceof Applicant applicant) {
+            if (applicant.getApplicantId() != null) {
+                return ShardIds.shardOf(applicant.getApplicantId());
+            }
+            return ShardIds.shardForEmail(Optional.of(applicant)
+                    .map(Applicant::getContactPoint)
+                    .map(ContactPoint::getElectronicAddress)
+                    .map(ElectronicAddress::getEmail)
+                    .orElseThrow(), shards.count());
+        }
+        if (key instanceof String email) {
+            return ShardIds.shardForEmail(email, shards.count());
+        }
+        throw new UnsupportedOperationException("ApplicantRepository." + signature.getName() + " can't be routed to a single shard");
+    }
+
+    private static Object[] withId(Object[] args, long applicantId) {
+        final Object[] routed = args.clone();
+        routed[0] = applicantId;
+        return routed;
+    }
+
+    private static boolean isMiss(Object result) {
+        return result == null || Optional.empty().equals(result) || Boolean.FALSE.equals(result);
+    }
+
+    private static Object notFound(MethodSignature signature) {
+        final Class<?> returnType = signature.getReturnType();
+        if (returnType == Optional.class) {
+            return Optional.empty();
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == void.class) {
+            return null;
+        }
+        throw new IllegalArgumentException("Id passed to ApplicantRepository." + signature.getName() + " belongs to an unknown shard");
+    }
+}
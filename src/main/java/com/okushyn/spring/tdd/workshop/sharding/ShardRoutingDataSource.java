@@ -0,0 +1,29 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard held by {@link ShardKeyHolder}; shard 0 when none is set (schema checks, health).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardDataSources shards) {
+        final Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            targets.put(shard, shards.shard(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.shard(0));
+        //an unknown shard must fail loudly instead of silently using shard 0
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardKeyHolder.current();
+    }
+}
@@ -0,0 +1,45 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.util.Properties;
+
+/**
+ * Takes the next value of the current shard's sequence and encodes the shard into it.
+ * Without a shard (sharding disabled) the plain sequence value is used.
+ * <p>
+ * With sharding the increment is forced to 1: a pooled optimizer would hand out values fetched from another shard.
+ */
+public class ShardedIdGenerator extends SequenceStyleGenerator {
+
+    /**
+     * Hibernate setting telling the generator that sharding is enabled, set by {@link ShardingConfiguration}.
+     */
+    public static final String SHARDED_SETTING = "workshop.sharding.enabled";
+
+    private final ShardedSequence sequence;
+
+    public ShardedIdGenerator(ShardedSequence sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public void configure(GeneratorCreationContext creationContext, Properties parameters) {
+        final boolean sharded = creationContext.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSetting(SHARDED_SETTING, StandardConverters.BOOLEAN, false);
+        parameters.put(SEQUENCE_PARAM, sequence.name());
+        parameters.put(INCREMENT_PARAM, String.valueOf(sharded ? 1 : sequence.allocationSize()));
+        super.configure(creationContext, parameters);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        final long localId = ((Number) super.generate(session, object)).longValue();
+        final Integer shard = ShardKeyHolder.current();
+        return shard == null ? localId : ShardIds.encode(shard, localId);
+    }
+}
@@ -0,0 +1,26 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Id taken from a database sequence by {@link ShardedIdGenerator}.
+ */
+@IdGeneratorType(ShardedIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface ShardedSequence {
+
+    String name();
+
+    /**
+     * Ids fetched per sequence call when sharding is disabled; with sharding every id is fetched from its shard.
+     */
+    int allocationSize() default 50;
+}
@@ -0,0 +1,113 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash-sharded applicant storage, enabled with {@code workshop.sharding.enabled=true}:
+ * <pre>
+ * workshop.sharding.shards[0].url=jdbc:h2:mem:shard0
+ * workshop.sharding.shards[1].url=jdbc:h2:mem:shard1
+ * </pre>
+ * Hibernate can only manage the schema of one database, so every shard gets {@code db/applicant-schema.sql} instead.
+ * That script and the {@link ShardRebalancer} queries are written for H2 and PostgreSQL, other databases are refused.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "workshop.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    private static final String APPLICANT_SEQUENCE = "applicant_seq";
+
+    @Bean
+    public ShardDataSources shardDataSources(ShardingProperties properties) {
+        final ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("db/applicant-schema.sql"));
+        final List<DataSource> shards = properties.getShards().stream()
+                .map(shard -> {
+                    requireSupportedDatabase(shard.getUrl());
+                    final DataSource dataSource = DataSourceBuilder.create()
+                            .url(shard.getUrl())
+                            .username(shard.getUsername())
+                            .password(shard.getPassword())
+                            .build();
+                    schema.execute(dataSource);
+                    return dataSource;
+                })
+                .toList();
+        return new ShardDataSources(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        //the connection is fetched on the first statement, after ShardRoutingAspect picked the shard,
+        //even when a transaction was opened before the repository call
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources));
+    }
+
+    @Bean
+    public ShardRoutingAspect shardRoutingAspect(ShardDataSources shardDataSources) {
+        return new ShardRoutingAspect(shardDataSources);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernateProperties() {
+        return hibernateProperties -> {
+            hibernateProperties.put("hibernate.hbm2ddl.auto", "none");
+            hibernateProperties.put(ShardedIdGenerator.SHARDED_SETTING, true);
+        };
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardingProperties properties, ShardDataSources shardDataSources) {
+        final List<DataFieldMaxValueIncrementer> sequences = new ArrayList<>();
+        for (int shard = 0; shard < shardDataSources.count(); shard++) {
+            sequences.add(applicantSequence(properties.getShards().get(shard).getUrl(), shardDataSources.shard(shard)));
+        }
+        return new ShardRebalancer(shardDataSources, sequences);
+    }
+
+    /**
+     * Rebalances once all beans exist but before the web server starts,
+     * so no request sees an applicant that is about to be moved.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "workshop.sharding", name = "rebalance-on-startup", havingValue = "true")
+    public SmartInitializingSingleton shardRebalancerOnStartup(ShardRebalancer shardRebalancer) {
+        return shardRebalancer::rebalance;
+    }
+
+    static DataFieldMaxValueIncrementer applicantSequence(String url, DataSource dataSource) {
+        return switch (requireSupportedDatabase(url)) {
+            case H2 -> new H2SequenceMaxValueIncrementer(dataSource, APPLICANT_SEQUENCE);
+            case POSTGRESQL -> new PostgresSequenceMaxValueIncrementer(dataSource, APPLICANT_SEQUENCE);
+            default -> throw new IllegalStateException("Unreachable, " + url + " passed the database check");
+        };
+    }
+
+    private static DatabaseDriver requireSupportedDatabase(String url) {
+        final DatabaseDriver database = DatabaseDriver.fromJdbcUrl(url);
+        //the schema uses "if not exists" and the rebalancer pages with "limit"
+        if (database != DatabaseDriver.H2 && database != DatabaseDriver.POSTGRESQL) {
+            throw new IllegalStateException("Shards have to be H2 or PostgreSQL databases, " + url + " is not");
+        }
+        return database;
+    }
+}
@@ -0,0 +1,31 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "workshop.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Moves applicants stored on the wrong shard before the web server starts, e.g. after a shard was added.
+     */
+    private boolean rebalanceOnStartup;
+
+    /**
+     * Shard datasources. The position in the list is the shard number, so shards may only be appended.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+    }
+}
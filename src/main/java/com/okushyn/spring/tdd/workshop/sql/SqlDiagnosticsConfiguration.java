@@ -0,0 +1,55 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts a JDBC proxy in front of the application datasource to count, time and trace statements.
+ * On by default, switched off with {@code workshop.sql-diagnostics.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "workshop.sql-diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SqlDiagnosticsProperties.class)
+public class SqlDiagnosticsConfiguration {
+
+    @Bean
+    public static BeanPostProcessor sqlDiagnosticsDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                          ObjectProvider<SqlDiagnosticsProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SqlDiagnosticsListener(meterRegistry, properties.getObject().getSlowQueryThreshold()))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SqlOriginAspect sqlOriginAspect() {
+        return new SqlOriginAspect();
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementCountingFilter> sqlStatementCountingFilter() {
+        final FilterRegistrationBean<SqlStatementCountingFilter> registration = new FilterRegistrationBean<>(new SqlStatementCountingFilter());
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,99 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Counts every executed statement for the current request, records its latency per query shape
+ * (exposed as {@value #METRIC_NAME} through actuator) and logs slow ones with their bind parameters.
+ */
+@Slf4j
+public class SqlDiagnosticsListener implements QueryExecutionListener {
+
+    public static final String METRIC_NAME = "workshop.sql.queries";
+
+    private static final int MAX_SHAPE_LENGTH = 200;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Duration slowQueryThreshold;
+
+    public SqlDiagnosticsListener(ObjectProvider<MeterRegistry> meterRegistry, Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        final String origin = SqlExecutionContext.origin();
+        final SqlStatementCounts counts = SqlExecutionContext.counts();
+        if (counts != null) {
+            queryInfoList.forEach(queryInfo -> counts.increment(QueryUtils.getQueryType(queryInfo.getQuery())));
+        }
+
+        final String query = queryInfoList.get(0).getQuery();
+        final QueryType type = QueryUtils.getQueryType(query);
+        final MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer.builder(METRIC_NAME)
+                    .description("Execution time of SQL statements by query shape")
+                    .tag("shape", shape(query))
+                    .tag("type", type.name().toLowerCase())
+                    .tag("origin", origin)
+                    .tag("success", String.valueOf(execInfo.isSuccess()))
+                    .register(registry)
+                    .record(execInfo.getElapsedTime(), TimeUnit.MILLISECONDS);
+        }
+
+        if (execInfo.getElapsedTime() >= slowQueryThreshold.toMillis()) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                log.warn("Slow query ({} ms) from {}: {} parameters {}",
+                        execInfo.getElapsedTime(), origin, queryInfo.getQuery(), parameters(queryInfo));
+            }
+        }
+    }
+
+    /**
+     * Whitespace collapsed and literals replaced, so the same statement always ends up in the same metric.
+     */
+    static String shape(String query) {
+        String shape = STRING_LITERAL.matcher(query).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) : shape;
+    }
+
+    private static String parameters(QueryInfo queryInfo) {
+        return queryInfo.getParametersList().stream()
+                .map(parameterSet -> parameterSet.stream()
+                        .map(ParameterSetOperation::getArgs)
+                        //setXxx(index, value) and setNull(index, sqlType) alike
+                        .map(args -> args.length > 1 ? String.valueOf(args[1]) : Arrays.toString(args))
+                        .collect(Collectors.joining(", ", "[", "]")))
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,18 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "workshop.sql-diagnostics")
+public class SqlDiagnosticsProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Statements running at least this long are logged together with their bind parameters.
+     */
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+}
@@ -0,0 +1,54 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+/**
+ * Per-thread state of the SQL diagnostics: statements of the current request and the service method issuing them.
+ */
+public final class SqlExecutionContext {
+
+    static final String UNKNOWN_ORIGIN = "unknown";
+
+    private static final ThreadLocal<SqlStatementCounts> COUNTS = new ThreadLocal<>();
+    private static final ThreadLocal<String> ORIGIN = new ThreadLocal<>();
+
+    private SqlExecutionContext() {
+    }
+
+    static void startCounting() {
+        COUNTS.set(new SqlStatementCounts());
+    }
+
+    static SqlStatementCounts stopCounting() {
+        final SqlStatementCounts counts = COUNTS.get();
+        COUNTS.remove();
+        return counts;
+    }
+
+    /**
+     * @return counts of the request in progress, null outside of a request
+     */
+    static SqlStatementCounts counts() {
+        return COUNTS.get();
+    }
+
+    static String origin() {
+        final String origin = ORIGIN.get();
+        return origin == null ? UNKNOWN_ORIGIN : origin;
+    }
+
+    /**
+     * @return the previous origin, to be restored once the method returns
+     */
+    static String enter(String origin) {
+        final String previous = ORIGIN.get();
+        ORIGIN.set(origin);
+        return previous;
+    }
+
+    static void exit(String previous) {
+        if (previous == null) {
+            ORIGIN.remove();
+        } else {
+            ORIGIN.set(previous);
+        }
+    }
+}
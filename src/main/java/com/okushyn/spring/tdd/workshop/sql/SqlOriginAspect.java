@@ -0,0 +1,27 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Remembers which {@code ApplicantService} method is running, so every statement can be traced back to it.
+ * Wraps the transaction advice, so statements flushed on commit are attributed too.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlOriginAspect {
+
+    @Around("within(com.okushyn.spring.tdd.workshop.service.ApplicantService)")
+    public Object trackOrigin(ProceedingJoinPoint joinPoint) throws Throwable {
+        final String previous = SqlExecutionContext.enter(
+                joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            SqlExecutionContext.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the statements every request issues. The result is logged and left in the
+ * {@link #STATEMENT_COUNTS_ATTRIBUTE} request attribute for tests.
+ */
+@Slf4j
+public class SqlStatementCountingFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENT_COUNTS_ATTRIBUTE = SqlStatementCountingFilter.class.getName() + ".counts";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlExecutionContext.startCounting();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            final SqlStatementCounts counts = SqlExecutionContext.stopCounting();
+            request.setAttribute(STATEMENT_COUNTS_ATTRIBUTE, counts);
+            if (log.isDebugEnabled()) {
+                log.debug("{} {} issued {} SQL statements ({})", request.getMethod(), request.getRequestURI(), counts.total(), counts);
+            }
+        }
+    }
+}
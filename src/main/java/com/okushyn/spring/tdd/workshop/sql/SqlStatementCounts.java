@@ -0,0 +1,48 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import net.ttddyy.dsproxy.QueryType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Statements executed while serving one request, by statement type.
+ */
+public class SqlStatementCounts {
+
+    private final Map<QueryType, Integer> counts = new EnumMap<>(QueryType.class);
+
+    void increment(QueryType type) {
+        counts.merge(type, 1, Integer::sum);
+    }
+
+    public int get(QueryType type) {
+        return counts.getOrDefault(type, 0);
+    }
+
+    public int select() {
+        return get(QueryType.SELECT);
+    }
+
+    public int insert() {
+        return get(QueryType.INSERT);
+    }
+
+    public int update() {
+        return get(QueryType.UPDATE);
+    }
+
+    public int delete() {
+        return get(QueryType.DELETE);
+    }
+
+    public int total() {
+        return counts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public String toString() {
+        return "select=" + select() + ", insert=" + insert() + ", update=" + update() + ", delete=" + delete()
+                + ", total=" + total();
+    }
+}
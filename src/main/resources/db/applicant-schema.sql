@@ -0,0 +1,21 @@
+-- Applicant schema for datasources Hibernate does not manage itself (shards, replicas).
+-- Must stay in sync with the Applicant entity mapping.
+create sequence if not exists applicant_seq start with 1 increment by 1;
+
+create table if not exists applicant (
+    applicant_id bigint       not null,
+    first_name   varchar(255),
+    last_name    varchar(255),
+    middle_name  varchar(255),
+    email        varchar(255),
+    primary key (applicant_id)
+);
+
+create index if not exists applicant_email_idx on applicant (email);
+
+-- Applicants moved away by ShardRebalancer, old id to the id they got on their new shard.
+create table if not exists applicant_forward (
+    applicant_id bigint not null,
+    forwarded_to bigint not null,
+    primary key (applicant_id)
+);
@@ -0,0 +1,15 @@
+-- Responses stored by JdbcIdempotencyStore. A row without status belongs to a request still in progress,
+-- the request holding claim_token until lease_until_millis.
+create table if not exists idempotency_record (
+    idempotency_key    varchar(255) not null,
+    fingerprint        varchar(64)  not null,
+    status             int,
+    location           varchar(512),
+    body               clob,
+    claim_token        varchar(36)  not null,
+    lease_until_millis bigint       not null,
+    created_at_millis  bigint       not null,
+    primary key (idempotency_key)
+);
+
+create index if not exists idempotency_record_created_idx on idempotency_record (created_at_millis);
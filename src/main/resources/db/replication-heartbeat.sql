@@ -0,0 +1,6 @@
+-- Heartbeat row written to the primary by ReplicaHealthMonitor; its age on a replica is the replica's lag.
+create table if not exists replication_heartbeat (
+    id             int    not null,
+    beat_at_millis bigint not null,
+    primary key (id)
+);
@@ -0,0 +1,37 @@
+package com.okushyn.spring.tdd.workshop;
+
+import com.okushyn.spring.tdd.workshop.model.*;
+
+/**
+ * Valid applicants for tests, i.e. with the mandatory last name and email.
+ */
+public final class TestApplicants {
+
+    private TestApplicants() {
+    }
+
+    public static Applicant applicant(String email) {
+        return applicant("Lastname", email);
+    }
+
+    public static Applicant applicantWithId(long applicantId, String email) {
+        final Applicant applicant = applicant(email);
+        applicant.setApplicantId(applicantId);
+        return applicant;
+    }
+
+    public static Applicant applicant(String lastName, String email) {
+        return Applicant.builder()
+                .person(Person.builder()
+                        .personName(PersonName.builder()
+                                .lastName(lastName)
+                                .build())
+                        .build())
+                .contactPoint(ContactPoint.builder()
+                        .electronicAddress(ElectronicAddress.builder()
+                                .email(email)
+                                .build())
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.okushyn.spring.tdd.workshop.MutableClock;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicantWithId;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicantCacheTest {
+
+    final MutableClock clock = new MutableClock();
+    final ApplicantCache cache = new ApplicantCache(true, 10, Duration.ofMinutes(5), clock);
+
+    @Test
+    void put_shouldMakeApplicantAvailableByIdAndEmail() {
+        final Applicant applicant = applicantWithId(7L, "cached@test.com");
+
+        cache.put(applicant);
+
+        assertThat(cache.getById(7L)).contains(applicant);
+        assertThat(cache.getByEmail("cached@test.com")).contains(applicant);
+    }
+
+    @Test
+    void put_shouldDropPreviousEmailOfApplicant() {
+        cache.put(applicantWithId(7L, "old@test.com"));
+
+        cache.put(applicantWithId(7L, "new@test.com"));
+
+        assertThat(cache.getByEmail("old@test.com")).isEmpty();
+        assertThat(cache.getByEmail("new@test.com")).isPresent();
+    }
+
+    @Test
+    void evict_shouldRemoveApplicantByIdAndEmail() {
+        cache.put(applicantWithId(7L, "cached@test.com"));
+
+        cache.evict(7L);
+
+        assertThat(cache.getById(7L)).isEmpty();
+        assertThat(cache.getByEmail("cached@test.com")).isEmpty();
+    }
+
+    @Test
+    void getById_shouldExpireApplicantAfterTtl() {
+        cache.put(applicantWithId(7L, "cached@test.com"));
+
+        clock.advance(Duration.ofMinutes(4));
+        assertThat(cache.getById(7L)).isPresent();
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(cache.getById(7L)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void putIfNotEvictedSince_shouldNotCacheApplicantReadBeforeEviction() {
+        cache.put(applicantWithId(7L, "deleted@test.com"));
+        //a read starts, then the applicant is deleted and evicted before the read caches what it loaded
+        final long stamp = cache.stamp();
+        cache.evict(7L);
+
+        cache.putIfNotEvictedSince(applicantWithId(7L, "deleted@test.com"), stamp);
+
+        assertThat(cache.getById(7L)).isEmpty();
+    }
+
+    @Test
+    void putIfNotEvictedSince_shouldCacheApplicantReadAfterEviction() {
+        cache.evict(7L);
+        final long stamp = cache.stamp();
+
+        cache.putIfNotEvictedSince(applicantWithId(7L, "recreated@test.com"), stamp);
+
+        assertThat(cache.getById(7L)).isPresent();
+    }
+
+    @Test
+    void putIfNotEvictedSince_shouldNotCacheReadsOlderThanForgottenTombstones() {
+        final long stamp = cache.stamp();
+        //more evictions than tombstones are kept
+        for (long applicantId = 100; applicantId < 112; applicantId++) {
+            cache.evict(applicantId);
+        }
+
+        cache.putIfNotEvictedSince(applicantWithId(100L, "evicted@test.com"), stamp);
+
+        assertThat(cache.getById(100L)).isEmpty();
+    }
+
+    @Test
+    void put_shouldDropLeastRecentlyUsedAboveMaxEntries() {
+        for (long applicantId = 1; applicantId <= 10; applicantId++) {
+            cache.put(applicantWithId(applicantId, "applicant" + applicantId + "@test.com"));
+            clock.advance(Duration.ofSeconds(1));
+        }
+        cache.getById(1L);
+
+        cache.put(applicantWithId(11L, "applicant11@test.com"));
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+        assertThat(cache.getById(1L)).isPresent();
+        assertThat(cache.getById(11L)).isPresent();
+        assertThat(cache.getById(2L)).isEmpty();
+    }
+
+    @Test
+    void hottest_shouldReturnMostRecentlyUsedFirst() {
+        cache.put(applicantWithId(1L, "first@test.com"));
+        clock.advance(Duration.ofSeconds(1));
+        cache.put(applicantWithId(2L, "second@test.com"));
+        clock.advance(Duration.ofSeconds(1));
+        cache.getById(1L);
+
+        assertThat(cache.hottest(1)).extracting(Applicant::getApplicantId).containsExactly(1L);
+        assertThat(cache.hottest(10)).extracting(Applicant::getApplicantId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void put_shouldDoNothingWhenDisabled() {
+        final ApplicantCache disabled = new ApplicantCache(false, 10, Duration.ofMinutes(5), clock);
+
+        disabled.put(applicantWithId(7L, "cached@test.com"));
+
+        assertThat(disabled.getById(7L)).isEmpty();
+    }
+}
@@ -0,0 +1,104 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicantWithId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApplicantSnapshotFileTest {
+
+    //magic, version, writtenAtMillis
+    private static final int COUNT_OFFSET = Integer.BYTES * 2 + Long.BYTES;
+    //count, then the first applicant id
+    private static final int FIRST_EMAIL_LENGTH_OFFSET = COUNT_OFFSET + Integer.BYTES + Long.BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_shouldReturnWrittenApplicants() throws IOException {
+        final ApplicantSnapshotFile snapshotFile = snapshotFile();
+        final List<Applicant> applicants = List.of(applicantWithId(1L, "first@test.com"), applicantWithId(1025L, "second@test.com"));
+
+        snapshotFile.write(applicants, 1_000L);
+        final ApplicantSnapshotFile.Snapshot snapshot = snapshotFile.read();
+
+        assertThat(snapshot.writtenAtMillis()).isEqualTo(1_000L);
+        assertThat(snapshot.applicants()).isEqualTo(applicants);
+    }
+
+    @Test
+    void write_shouldReplacePreviousSnapshot() throws IOException {
+        final ApplicantSnapshotFile snapshotFile = snapshotFile();
+        snapshotFile.write(List.of(applicantWithId(1L, "first@test.com")), 1_000L);
+
+        snapshotFile.write(List.of(), 2_000L);
+
+        assertThat(snapshotFile.read().applicants()).isEmpty();
+        try (var files = Files.list(dir)) {
+            //no temporary file left behind
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void read_shouldRejectFileThatIsNoSnapshot() throws IOException {
+        Files.writeString(dir.resolve("applicant-snapshot.bin"), "not a snapshot at all");
+
+        assertThatThrownBy(() -> snapshotFile().read()).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void read_shouldRejectTruncatedSnapshot() throws IOException {
+        final ApplicantSnapshotFile snapshotFile = writtenSnapshot();
+        try (FileChannel channel = FileChannel.open(dir.resolve("applicant-snapshot.bin"), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        assertThatThrownBy(snapshotFile::read).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void read_shouldRejectNegativeFieldLength() throws IOException {
+        final ApplicantSnapshotFile snapshotFile = writtenSnapshot();
+        overwriteInt(FIRST_EMAIL_LENGTH_OFFSET, -5);
+
+        assertThatThrownBy(snapshotFile::read).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void read_shouldRejectCountTheFileCantHold() throws IOException {
+        final ApplicantSnapshotFile snapshotFile = writtenSnapshot();
+        overwriteInt(COUNT_OFFSET, Integer.MAX_VALUE);
+
+        assertThatThrownBy(snapshotFile::read).isInstanceOf(IOException.class);
+    }
+
+    private ApplicantSnapshotFile writtenSnapshot() throws IOException {
+        final ApplicantSnapshotFile snapshotFile = snapshotFile();
+        snapshotFile.write(List.of(applicantWithId(1L, "first@test.com")), 1_000L);
+        return snapshotFile;
+    }
+
+    private void overwriteInt(int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve("applicant-snapshot.bin"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+        }
+    }
+
+    private ApplicantSnapshotFile snapshotFile() {
+        return new ApplicantSnapshotFile(dir.resolve("applicant-snapshot.bin"), new ObjectMapper());
+    }
+}
@@ -0,0 +1,116 @@
+package com.okushyn.spring.tdd.workshop.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.MutableClock;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.repository.ApplicantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicantWithId;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ApplicantSnapshotManagerTest {
+
+    @TempDir
+    Path dir;
+
+    final MutableClock clock = new MutableClock();
+    final ApplicantRepository repository = mock(ApplicantRepository.class);
+    final SnapshotProperties properties = new SnapshotProperties();
+
+    ApplicantSnapshotFile snapshotFile;
+    ApplicantCache cache;
+    ApplicantSnapshotManager manager;
+
+    @BeforeEach
+    void setUp() {
+        properties.setFile(dir.resolve("applicant-snapshot.bin"));
+        snapshotFile = new ApplicantSnapshotFile(properties.getFile(), new ObjectMapper());
+        cache = new ApplicantCache(true, 100, Duration.ofMinutes(5), clock);
+        manager = new ApplicantSnapshotManager(snapshotFile, cache, repository, properties, clock);
+    }
+
+    @Test
+    void load_shouldWarmCacheFromSnapshot() throws IOException {
+        snapshotFile.write(List.of(applicantWithId(1L, "first@test.com"), applicantWithId(2L, "second@test.com")), clock.millis());
+
+        assertThat(manager.load()).hasSize(2);
+
+        assertThat(cache.getById(1L)).isPresent();
+        assertThat(cache.getByEmail("second@test.com")).isPresent();
+    }
+
+    @Test
+    void load_shouldIgnoreSnapshotOlderThanMaxAge() throws IOException {
+        snapshotFile.write(List.of(applicantWithId(1L, "first@test.com")), clock.millis());
+        clock.advance(properties.getMaxAge().plusSeconds(1));
+
+        assertThat(manager.load()).isEmpty();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void load_shouldStartColdWhenSnapshotIsCorrupt() throws IOException {
+        snapshotFile.write(List.of(applicantWithId(1L, "first@test.com")), clock.millis());
+        final byte[] bytes = Files.readAllBytes(properties.getFile());
+        //first email length
+        bytes[28] = (byte) 0xFF;
+        Files.write(properties.getFile(), bytes);
+
+        assertThat(manager.load()).isEmpty();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void load_shouldStartColdWithoutSnapshot() {
+        assertThat(manager.load()).isEmpty();
+    }
+
+    @Test
+    void validate_shouldEvictDeletedAndRefreshChangedApplicants() {
+        final Applicant unchanged = applicantWithId(1L, "unchanged@test.com");
+        final Applicant deleted = applicantWithId(2L, "deleted@test.com");
+        final Applicant changed = applicantWithId(3L, "changed@test.com");
+        final List<Applicant> loaded = List.of(unchanged, deleted, changed);
+        loaded.forEach(cache::put);
+        final Applicant current = applicantWithId(3L, "current@test.com");
+        when(repository.findById(1L)).thenReturn(Optional.of(applicantWithId(1L, "unchanged@test.com")));
+        when(repository.findById(2L)).thenReturn(Optional.empty());
+        when(repository.findById(3L)).thenReturn(Optional.of(current));
+
+        manager.validate(loaded);
+
+        assertThat(cache.getById(1L)).contains(unchanged);
+        assertThat(cache.getById(2L)).isEmpty();
+        assertThat(cache.getById(3L)).contains(current);
+        assertThat(cache.getByEmail("changed@test.com")).isEmpty();
+    }
+
+    @Test
+    void write_shouldStoreHottestApplicantsForNextStart() {
+        properties.setMaxEntries(1);
+        cache.put(applicantWithId(1L, "cold@test.com"));
+        clock.advance(Duration.ofSeconds(1));
+        cache.put(applicantWithId(2L, "hot@test.com"));
+
+        manager.write();
+
+        final ApplicantCache nextCache = new ApplicantCache(true, 100, Duration.ofMinutes(5), clock);
+        new ApplicantSnapshotManager(snapshotFile, nextCache, repository, properties, clock).load();
+        assertThat(nextCache.getById(2L)).isPresent();
+        assertThat(nextCache.getById(1L)).isEmpty();
+    }
+}
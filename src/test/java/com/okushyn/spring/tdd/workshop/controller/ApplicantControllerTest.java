@@ -3,6 +3,7 @@ package com.okushyn.spring.tdd.workshop.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.okushyn.spring.tdd.workshop.exceptions.ApplicantAlreadyExistsException;
 import com.okushyn.spring.tdd.workshop.exceptions.ApplicantNotExistsException;
+import com.okushyn.spring.tdd.workshop.idempotency.IdempotencyConfiguration;
 import com.okushyn.spring.tdd.workshop.model.*;
 import com.okushyn.spring.tdd.workshop.service.ApplicantService;
 import org.assertj.core.api.AssertionsForClassTypes;
@@ -14,12 +15,19 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +39,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 
 @WebMvcTest
+@Import(IdempotencyConfiguration.class)
 class ApplicantControllerTest {
 
     @Autowired
@@ -148,6 +157,98 @@ class ApplicantControllerTest {
         verify(applicantService, times(1)).save(any(Applicant.class));
     }
 
+    @Test
+    @DisplayName("When a request is retried with the same Idempotency-Key, then the original response is returned")
+    void createApplicant_whenIdempotencyKeyRepeatedThenReturnOriginalResponse() throws Exception {
+        Applicant applicant = getApplicantWithLastnameAndElectronicAddressForTest();
+
+        when(applicantService.save(any(Applicant.class))).thenAnswer(invocation -> {
+            final Applicant argument = invocation.getArgument(0, Applicant.class);
+            argument.setApplicantId(7L);
+            return argument;
+        });
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(
+                            post("/applicants")
+                                    .header(ApplicantController.IDEMPOTENCY_KEY_HEADER, "retried-key")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(applicant))
+                    )
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string(HttpHeaders.LOCATION, "applicants/7"))
+                    .andExpect(jsonPath("$.applicantId", equalTo(7)));
+        }
+
+        verify(applicantService, times(1)).save(any(Applicant.class));
+    }
+
+    @Test
+    @DisplayName("When an Idempotency-Key is reused for a different applicant, then Status Code 422")
+    void createApplicant_shouldReturn422WhenIdempotencyKeyReusedForDifferentRequest() throws Exception {
+        Applicant applicant = getApplicantWithLastnameAndElectronicAddressForTest();
+        when(applicantService.save(any(Applicant.class))).thenAnswer(invocation -> invocation.getArgument(0, Applicant.class));
+
+        mockMvc.perform(
+                        post("/applicants")
+                                .header(ApplicantController.IDEMPOTENCY_KEY_HEADER, "reused-key")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(applicant))
+                )
+                .andExpect(status().isCreated());
+
+        applicant.getContactPoint().getElectronicAddress().setEmail("other@test.com");
+        mockMvc.perform(
+                        post("/applicants")
+                                .header(ApplicantController.IDEMPOTENCY_KEY_HEADER, "reused-key")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(applicant))
+                )
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(applicantService, times(1)).save(any(Applicant.class));
+    }
+
+    @Test
+    @DisplayName("When concurrent requests share an Idempotency-Key, then the applicant is saved only once")
+    void createApplicant_whenConcurrentRequestsShareIdempotencyKeyThenSaveOnce() throws Exception {
+        Applicant applicant = getApplicantWithLastnameAndElectronicAddressForTest();
+        final CountDownLatch saveStarted = new CountDownLatch(1);
+        final CountDownLatch releaseSave = new CountDownLatch(1);
+
+        when(applicantService.save(any(Applicant.class))).thenAnswer(invocation -> {
+            saveStarted.countDown();
+            releaseSave.await(5, TimeUnit.SECONDS);
+            final Applicant argument = invocation.getArgument(0, Applicant.class);
+            argument.setApplicantId(7L);
+            return argument;
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Callable<Integer> request = () -> mockMvc.perform(
+                            post("/applicants")
+                                    .header(ApplicantController.IDEMPOTENCY_KEY_HEADER, "concurrent-key")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(applicant)))
+                    .andReturn().getResponse().getStatus();
+
+            final Future<Integer> first = executor.submit(request);
+            assertThat(saveStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            final Future<Integer> second = executor.submit(request);
+            //give the second request time to find the key in progress
+            Thread.sleep(200);
+            releaseSave.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(201);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(201);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(applicantService, times(1)).save(any(Applicant.class));
+    }
+
     @Test
     @DisplayName("When a valid email is provided, then Applicant record should be returned ")
     void getApplicantByEmail_whenValidEmailThenReturnApplicant() throws Exception {
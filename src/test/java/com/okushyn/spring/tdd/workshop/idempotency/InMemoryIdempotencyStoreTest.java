@@ -0,0 +1,143 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import com.okushyn.spring.tdd.workshop.MutableClock;
+import com.okushyn.spring.tdd.workshop.exceptions.ApplicantAlreadyExistsException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryIdempotencyStoreTest {
+
+    final MutableClock clock = new MutableClock();
+    final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void execute_shouldReplayResponseWithinTtl() {
+        final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 10, Duration.ofSeconds(1), clock);
+
+        final IdempotentResponse first = store.execute("key", "fingerprint", this::created);
+        clock.advance(Duration.ofSeconds(59));
+        final IdempotentResponse second = store.execute("key", "fingerprint", this::created);
+
+        assertThat(second).isSameAs(first);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldRunActionAgainAfterTtl() {
+        final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 10, Duration.ofSeconds(1), clock);
+
+        store.execute("key", "fingerprint", this::created);
+        clock.advance(Duration.ofMinutes(1));
+        store.execute("key", "fingerprint", this::created);
+
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void execute_shouldEvictOldestKeysAboveMaxEntries() {
+        final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 2, Duration.ofSeconds(1), clock);
+
+        store.execute("first", "fingerprint", this::created);
+        store.execute("second", "fingerprint", this::created);
+        store.execute("third", "fingerprint", this::created);
+
+        assertThat(store.size()).isEqualTo(2);
+
+        store.execute("first", "fingerprint", this::created);
+
+        assertThat(executions).hasValue(4);
+    }
+
+    @Test
+    void execute_shouldKeepEvictingCompletedKeysBehindOneInProgress() throws Exception {
+        final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 2, Duration.ofSeconds(1), clock);
+        final CountDownLatch slowStarted = new CountDownLatch(1);
+        final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<IdempotentResponse> slow = executor.submit(() -> store.execute("slow", "fingerprint", () -> {
+                slowStarted.countDown();
+                await(releaseSlow);
+                return created();
+            }));
+            assertThat(slowStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            for (int i = 0; i < 10; i++) {
+                store.execute("key" + i, "fingerprint", this::created);
+            }
+
+            //the oldest entry is still running, the completed ones behind it are evicted anyway
+            assertThat(store.size()).isEqualTo(2);
+
+            releaseSlow.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_shouldReleaseKeyWhenActionFails() {
+        final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 10, Duration.ofSeconds(1), clock);
+
+        assertThatThrownBy(() -> store.execute("key", "fingerprint", () -> {
+            throw new ApplicantAlreadyExistsException("Applicant already exists");
+        })).isInstanceOf(ApplicantAlreadyExistsException.class);
+
+        store.execute("key", "fingerprint", this::created);
+
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldRunActionForWaitingRequestWhenFirstRequestFails() throws Exception {
+        final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 10, Duration.ofSeconds(5), clock);
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch failFirst = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<IdempotentResponse> first = executor.submit(() -> store.execute("key", "fingerprint", () -> {
+                firstStarted.countDown();
+                await(failFirst);
+                throw new IllegalStateException("Database unavailable");
+            }));
+            assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            final Future<IdempotentResponse> second = executor.submit(() -> store.execute("key", "fingerprint", this::created));
+            //give the second request time to find the key in progress
+            Thread.sleep(200);
+            failFirst.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(second.get(5, TimeUnit.SECONDS).status()).isEqualTo(201);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(executions).hasValue(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IdempotentResponse created() {
+        executions.incrementAndGet();
+        return new IdempotentResponse(201, "applicants/" + executions.get(), null);
+    }
+}
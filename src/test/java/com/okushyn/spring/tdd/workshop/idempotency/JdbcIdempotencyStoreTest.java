@@ -0,0 +1,172 @@
+package com.okushyn.spring.tdd.workshop.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.MutableClock;
+import com.okushyn.spring.tdd.workshop.exceptions.ApplicantAlreadyExistsException;
+import com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyInProgressException;
+import com.okushyn.spring.tdd.workshop.exceptions.IdempotencyKeyReusedException;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicant;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcIdempotencyStoreTest {
+
+    static JdbcTemplate jdbcTemplate;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final MutableClock clock = new MutableClock();
+    final AtomicInteger executions = new AtomicInteger();
+
+    JdbcIdempotencyStore store;
+
+    @BeforeAll
+    static void createSchema() {
+        final DataSource dataSource = DataSourceBuilder.create()
+                .url("jdbc:h2:mem:idempotency-test;DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .build();
+        new ResourceDatabasePopulator(new ClassPathResource("db/idempotency-schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from idempotency_record");
+        store = store(clock, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void execute_shouldReplayStoredResponse() {
+        final IdempotentResponse first = store.execute("key", "fingerprint", this::created);
+        final IdempotentResponse second = store.execute("key", "fingerprint", this::created);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.body().getContactPoint().getElectronicAddress().getEmail()).isEqualTo("test@test.com");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedForDifferentRequest() {
+        store.execute("key", "fingerprint", this::created);
+
+        assertThatThrownBy(() -> store.execute("key", "other-fingerprint", this::created))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldReleaseKeyWhenActionFails() {
+        assertThatThrownBy(() -> store.execute("key", "fingerprint", () -> {
+            throw new ApplicantAlreadyExistsException("Applicant already exists");
+        })).isInstanceOf(ApplicantAlreadyExistsException.class);
+
+        store.execute("key", "fingerprint", this::created);
+
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldPurgeRecordsOlderThanTtl() {
+        store.execute("old-key", "fingerprint", this::created);
+        clock.advance(Duration.ofHours(2));
+
+        store.execute("new-key", "fingerprint", this::created);
+
+        assertThat(records("old-key")).isZero();
+        assertThat(records("new-key")).isOne();
+    }
+
+    @Test
+    void execute_shouldRunActionOnceForConcurrentRequestsWithSameKey() throws Exception {
+        final CountDownLatch actionStarted = new CountDownLatch(1);
+        final CountDownLatch releaseAction = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<IdempotentResponse> first = executor.submit(() -> store.execute("key", "fingerprint", () -> {
+                actionStarted.countDown();
+                try {
+                    releaseAction.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return created();
+            }));
+            assertThat(actionStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            final Future<IdempotentResponse> second = executor.submit(() -> store.execute("key", "fingerprint", this::created));
+            //give the second request time to find the key in progress
+            Thread.sleep(200);
+            releaseAction.countDown();
+
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_shouldGiveUpWaitingWhileKeyIsLeasedToRunningRequest() {
+        final JdbcIdempotencyStore impatientStore = store(Clock.systemUTC(), Duration.ofMillis(200));
+        claimedByDeadInstance("key", System.currentTimeMillis());
+
+        assertThatThrownBy(() -> impatientStore.execute("key", "fingerprint", this::created))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void execute_shouldTakeOverKeyOnceLeaseRanOut() {
+        claimedByDeadInstance("key", clock.millis());
+        clock.advance(Duration.ofMinutes(1));
+
+        final IdempotentResponse response = store.execute("key", "fingerprint", this::created);
+
+        assertThat(response.status()).isEqualTo(201);
+        assertThat(store.execute("key", "fingerprint", this::created)).isEqualTo(response);
+        assertThat(executions).hasValue(1);
+    }
+
+    private JdbcIdempotencyStore store(Clock clock, Duration waitTimeout) {
+        return new JdbcIdempotencyStore(jdbcTemplate, objectMapper, Duration.ofHours(1), waitTimeout, Duration.ofSeconds(30), clock);
+    }
+
+    //a claim whose response is never written, as left behind by an instance dying mid-request
+    private static void claimedByDeadInstance(String key, long claimedAtMillis) {
+        jdbcTemplate.update("""
+                        insert into idempotency_record (idempotency_key, fingerprint, claim_token, lease_until_millis, created_at_millis)
+                        values (?, 'fingerprint', 'dead-instance', ?, ?)""",
+                key, claimedAtMillis + Duration.ofSeconds(30).toMillis(), claimedAtMillis);
+    }
+
+    private static int records(String key) {
+        return jdbcTemplate.queryForObject("select count(*) from idempotency_record where idempotency_key = ?", Integer.class, key);
+    }
+
+    private IdempotentResponse created() {
+        executions.incrementAndGet();
+        final Applicant applicant = applicant("test@test.com");
+        applicant.setApplicantId((long) executions.get());
+        return new IdempotentResponse(201, "applicants/" + executions.get(), applicant);
+    }
+}
@@ -0,0 +1,242 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.TestApplicants;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of /applicants calls from many concurrent clients and records per-operation latency.
+ * Every client only reads and deletes applicants it created itself, so operations never race on the same record.
+ * <p>
+ * Clients send on a fixed schedule and latency is measured from the scheduled start, not from the send.
+ * A client stuck behind a slow response sends its next requests late, and that delay is part of their latency;
+ * otherwise a stalled server would send fewer requests and hide the queueing time from the percentiles.
+ */
+class ApplicantLoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient httpClient;
+    private final URI applicantsUri;
+    private final ObjectMapper objectMapper;
+    private final Map<LoadTestOperation, Recorder> recorders = new EnumMap<>(LoadTestOperation.class);
+    private final Map<LoadTestOperation, LongAdder> errors = new EnumMap<>(LoadTestOperation.class);
+
+    ApplicantLoadDriver(String baseUrl, ObjectMapper objectMapper) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.applicantsUri = URI.create(baseUrl + "/applicants");
+        this.objectMapper = objectMapper;
+        for (LoadTestOperation operation : LoadTestOperation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    LoadTestResult run(LoadTestSettings settings) throws InterruptedException {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final OperationPicker picker = new OperationPicker(settings.mix());
+
+        //each client offers its share of the rate
+        final long intervalNanos = (long) (settings.clients() * TimeUnit.SECONDS.toNanos(1) / settings.rate());
+        try (ExecutorService clients = Executors.newFixedThreadPool(settings.clients())) {
+            final long start = System.nanoTime();
+            for (int client = 0; client < settings.clients(); client++) {
+                final int clientId = client;
+                //staggered, so the clients don't send in bursts
+                final long firstStart = start + intervalNanos * client / settings.clients();
+                clients.submit(() -> runClient(clientId, firstStart, intervalNanos, picker, running));
+            }
+
+            Thread.sleep(settings.warmup().toMillis());
+            //drop everything recorded during warmup
+            recorders.values().forEach(Recorder::getIntervalHistogram);
+            errors.values().forEach(LongAdder::reset);
+
+            final long measureStart = System.nanoTime();
+            Thread.sleep(settings.duration().toMillis());
+            final Map<LoadTestOperation, Histogram> histograms = new EnumMap<>(LoadTestOperation.class);
+            final Map<LoadTestOperation, Long> errorCounts = new EnumMap<>(LoadTestOperation.class);
+            recorders.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+            errors.forEach((operation, counter) -> errorCounts.put(operation, counter.sum()));
+            final Duration measured = Duration.ofNanos(System.nanoTime() - measureStart);
+
+            running.set(false);
+            clients.shutdown();
+            clients.awaitTermination(30, TimeUnit.SECONDS);
+
+            return new LoadTestResult(settings, histograms, errorCounts, measured);
+        }
+    }
+
+    private void runClient(int clientId, long firstStart, long intervalNanos, OperationPicker picker, AtomicBoolean running) {
+        final Deque<CreatedApplicant> own = new ArrayDeque<>();
+        long sequence = 0;
+        long scheduledStart = firstStart;
+        while (running.get()) {
+            long ahead;
+            while ((ahead = scheduledStart - System.nanoTime()) > 0 && running.get()) {
+                LockSupport.parkNanos(ahead);
+            }
+            if (!running.get()) {
+                return;
+            }
+
+            LoadTestOperation operation = picker.next();
+            if (own.isEmpty()) {
+                //nothing to read or delete yet
+                operation = LoadTestOperation.CREATE;
+            }
+            switch (operation) {
+                case CREATE -> create("load-" + clientId + "-" + sequence++ + "@example.com", scheduledStart).ifPresent(own::addLast);
+                case GET_BY_ID -> getById(randomOf(own).applicantId(), scheduledStart);
+                case GET_BY_EMAIL -> getByEmail(randomOf(own).email(), scheduledStart);
+                case DELETE -> {
+                    if (delete(own.peekFirst().applicantId(), scheduledStart)) {
+                        own.pollFirst();
+                    }
+                }
+            }
+            scheduledStart += intervalNanos;
+        }
+    }
+
+    /**
+     * @return latencies recorded for the operation since the previous call
+     */
+    Histogram intervalHistogram(LoadTestOperation operation) {
+        return recorders.get(operation).getIntervalHistogram();
+    }
+
+    long errors(LoadTestOperation operation) {
+        return errors.get(operation).sum();
+    }
+
+    Optional<CreatedApplicant> create(String email) {
+        return create(email, System.nanoTime());
+    }
+
+    boolean getById(long applicantId) {
+        return getById(applicantId, System.nanoTime());
+    }
+
+    boolean getByEmail(String email) {
+        return getByEmail(email, System.nanoTime());
+    }
+
+    /**
+     * @param scheduledStart {@link System#nanoTime()} the request should have been sent at, latency is measured from it
+     */
+    private Optional<CreatedApplicant> create(String email, long scheduledStart) {
+        try {
+            final HttpRequest request = HttpRequest.newBuilder(applicantsUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(TestApplicants.applicant("Loadtest", email))))
+                    .build();
+            final HttpResponse<String> response = send(LoadTestOperation.CREATE, request, 201, scheduledStart);
+            if (response == null) {
+                return Optional.empty();
+            }
+            final JsonNode body = objectMapper.readTree(response.body());
+            return Optional.of(new CreatedApplicant(body.get("applicantId").asLong(), email));
+        } catch (IOException e) {
+            errors.get(LoadTestOperation.CREATE).increment();
+            return Optional.empty();
+        }
+    }
+
+    private boolean getById(long applicantId, long scheduledStart) {
+        return send(LoadTestOperation.GET_BY_ID,
+                HttpRequest.newBuilder(URI.create(applicantsUri + "/" + applicantId)).GET().build(), 200, scheduledStart) != null;
+    }
+
+    private boolean getByEmail(String email, long scheduledStart) {
+        final URI uri = URI.create(applicantsUri + "?email=" + URLEncoder.encode(email, StandardCharsets.UTF_8));
+        return send(LoadTestOperation.GET_BY_EMAIL, HttpRequest.newBuilder(uri).GET().build(), 200, scheduledStart) != null;
+    }
+
+    private boolean delete(long applicantId, long scheduledStart) {
+        return send(LoadTestOperation.DELETE,
+                HttpRequest.newBuilder(URI.create(applicantsUri + "/" + applicantId)).DELETE().build(), 200, scheduledStart) != null;
+    }
+
+    /**
+     * @return the response, or null if the call failed or answered with an unexpected status
+     */
+    private HttpResponse<String> send(LoadTestOperation operation, HttpRequest request, int expectedStatus, long scheduledStart) {
+        try {
+            final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            recorders.get(operation).recordValue(Math.min(System.nanoTime() - scheduledStart, HIGHEST_TRACKABLE_NANOS));
+            if (response.statusCode() != expectedStatus) {
+                errors.get(operation).increment();
+                return null;
+            }
+            return response;
+        } catch (IOException e) {
+            recorders.get(operation).recordValue(Math.min(System.nanoTime() - scheduledStart, HIGHEST_TRACKABLE_NANOS));
+            errors.get(operation).increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.get(operation).increment();
+            return null;
+        }
+    }
+
+    private static CreatedApplicant randomOf(Deque<CreatedApplicant> applicants) {
+        final int index = ThreadLocalRandom.current().nextInt(applicants.size());
+        final Iterator<CreatedApplicant> iterator = applicants.iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    record CreatedApplicant(long applicantId, String email) {
+    }
+
+    private static final class OperationPicker {
+        private final LoadTestOperation[] operations;
+        private final int[] cumulativeWeights;
+
+        OperationPicker(Map<LoadTestOperation, Integer> mix) {
+            operations = mix.keySet().toArray(LoadTestOperation[]::new);
+            cumulativeWeights = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += mix.get(operations[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        LoadTestOperation next() {
+            final int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (roll < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException("Unreachable");
+        }
+    }
+}
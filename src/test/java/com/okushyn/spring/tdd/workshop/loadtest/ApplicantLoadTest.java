@@ -0,0 +1,53 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the whole application on a random port with in-memory H2 and checks it against the configured SLOs.
+ * Excluded from the default build, run with {@code mvn -Pload-test verify}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "server.tomcat.threads.max=200",
+                "logging.level.root=WARN"
+        })
+class ApplicantLoadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void applicantsEndpoint_shouldMeetThroughputAndLatencySlo() throws Exception {
+        final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        final LoadTestResult result = new ApplicantLoadDriver("http://localhost:" + port, objectMapper).run(settings);
+        LoadTestReport.write("applicants-load-test", result);
+
+        assertThat(result.totalRequests())
+                .withFailMessage("No requests were measured")
+                .isPositive();
+        assertThat(result.errorRate())
+                .withFailMessage("Error rate %.4f is above SLO %.4f", result.errorRate(), settings.maxErrorRate())
+                .isLessThanOrEqualTo(settings.maxErrorRate());
+        assertThat(result.throughput())
+                .withFailMessage("Throughput %.1f req/s is below SLO %.1f req/s", result.throughput(), settings.minThroughput())
+                .isGreaterThanOrEqualTo(settings.minThroughput());
+
+        final double p99 = LoadTestResult.percentileMillis(result.overall(), 99);
+        assertThat(p99)
+                .withFailMessage("p99 %.2f ms is above SLO %.2f ms", p99, settings.maxP99Millis())
+                .isLessThanOrEqualTo(settings.maxP99Millis());
+    }
+}
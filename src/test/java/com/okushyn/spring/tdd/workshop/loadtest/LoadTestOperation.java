@@ -0,0 +1,27 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import java.util.Arrays;
+
+enum LoadTestOperation {
+    CREATE("create"),
+    GET_BY_ID("getById"),
+    GET_BY_EMAIL("getByEmail"),
+    DELETE("delete");
+
+    private final String operationName;
+
+    LoadTestOperation(String operationName) {
+        this.operationName = operationName;
+    }
+
+    String operationName() {
+        return operationName;
+    }
+
+    static LoadTestOperation fromName(String name) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.operationName.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown load test operation: " + name));
+    }
+}
@@ -0,0 +1,126 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes {@code <name>.json} and {@code <name>.html} into the configured report directory.
+ */
+final class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private LoadTestReport() {
+    }
+
+    static void write(String name, LoadTestResult result) throws IOException {
+        final Path reportDir = result.settings().reportDir();
+        Files.createDirectories(reportDir);
+
+        final Map<String, Object> summary = summary(result);
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(reportDir.resolve(name + ".json").toFile(), summary);
+        Files.writeString(reportDir.resolve(name + ".html"), html(name, result));
+    }
+
+    private static Map<String, Object> summary(LoadTestResult result) {
+        final LoadTestSettings settings = result.settings();
+        final Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("clients", settings.clients());
+        summary.put("offeredRate", settings.rate());
+        summary.put("warmupSeconds", settings.warmup().toSeconds());
+        summary.put("measuredSeconds", result.measured().toMillis() / 1000.0);
+        final Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix().forEach((operation, weight) -> mix.put(operation.operationName(), weight));
+        summary.put("mix", mix);
+        summary.put("throughput", result.throughput());
+        summary.put("requests", result.totalRequests());
+        summary.put("errors", result.totalErrors());
+        summary.put("errorRate", result.errorRate());
+        summary.put("latencyMillis", latency(result.overall()));
+
+        final Map<String, Object> slo = new LinkedHashMap<>();
+        slo.put("minThroughput", settings.minThroughput());
+        slo.put("maxP99Millis", settings.maxP99Millis());
+        slo.put("maxErrorRate", settings.maxErrorRate());
+        summary.put("slo", slo);
+
+        final Map<String, Object> operations = new LinkedHashMap<>();
+        result.histograms().forEach((operation, histogram) -> {
+            final Map<String, Object> operationSummary = new LinkedHashMap<>();
+            operationSummary.put("requests", histogram.getTotalCount());
+            operationSummary.put("errors", result.errors().get(operation));
+            operationSummary.put("latencyMillis", latency(histogram));
+            operations.put(operation.operationName(), operationSummary);
+        });
+        summary.put("operations", operations);
+        return summary;
+    }
+
+    private static Map<String, Double> latency(Histogram histogram) {
+        final Map<String, Double> latency = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latency.put("p" + formatPercentile(percentile), LoadTestResult.percentileMillis(histogram, percentile));
+        }
+        latency.put("max", histogram.getMaxValue() / 1_000_000.0);
+        return latency;
+    }
+
+    private static String html(String name, LoadTestResult result) {
+        final StringBuilder rows = new StringBuilder();
+        result.histograms().forEach((operation, histogram) ->
+                rows.append(row(operation.operationName(), histogram, result.errors().get(operation))));
+        rows.append(row("total", result.overall(), result.totalErrors()));
+
+        final StringBuilder header = new StringBuilder("<th>operation</th><th>requests</th><th>errors</th>");
+        for (double percentile : PERCENTILES) {
+            header.append("<th>p").append(formatPercentile(percentile)).append(" (ms)</th>");
+        }
+        header.append("<th>max (ms)</th>");
+
+        final LoadTestSettings settings = result.settings();
+        return """
+                <!DOCTYPE html>
+                <html>
+                <head><meta charset="utf-8"><title>%1$s</title>
+                <style>body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}</style>
+                </head>
+                <body>
+                <h1>%1$s</h1>
+                <p>%2$d clients offering %13$.1f req/s, %3$.1f s measured after %4$d s warmup</p>
+                <p>Throughput: <b>%5$.1f req/s</b> (SLO &ge; %6$.1f), p99: <b>%7$.2f ms</b> (SLO &le; %8$.2f), error rate: <b>%9$.4f</b> (SLO &le; %10$.4f)</p>
+                <table>
+                <tr>%11$s</tr>
+                %12$s</table>
+                </body>
+                </html>
+                """.formatted(name, settings.clients(), result.measured().toMillis() / 1000.0, settings.warmup().toSeconds(),
+                result.throughput(), settings.minThroughput(),
+                LoadTestResult.percentileMillis(result.overall(), 99), settings.maxP99Millis(),
+                result.errorRate(), settings.maxErrorRate(),
+                header, rows, settings.rate());
+    }
+
+    private static String row(String name, Histogram histogram, long errors) {
+        final StringBuilder row = new StringBuilder("<tr><td>").append(name).append("</td><td>")
+                .append(histogram.getTotalCount()).append("</td><td>").append(errors).append("</td>");
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(Locale.ROOT, "<td>%.2f</td>", LoadTestResult.percentileMillis(histogram, percentile)));
+        }
+        row.append(String.format(Locale.ROOT, "<td>%.2f</td>", histogram.getMaxValue() / 1_000_000.0));
+        return row.append("</tr>\n").toString();
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+}
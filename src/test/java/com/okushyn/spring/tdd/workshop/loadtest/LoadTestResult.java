@@ -0,0 +1,40 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+record LoadTestResult(LoadTestSettings settings,
+                      Map<LoadTestOperation, Histogram> histograms,
+                      Map<LoadTestOperation, Long> errors,
+                      Duration measured) {
+
+    Histogram overall() {
+        final Histogram overall = new Histogram(3);
+        histograms.values().forEach(overall::add);
+        return overall;
+    }
+
+    long totalRequests() {
+        return overall().getTotalCount();
+    }
+
+    long totalErrors() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    double throughput() {
+        return totalRequests() / (measured.toNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    double errorRate() {
+        final long total = totalRequests();
+        return total == 0 ? 0 : totalErrors() / (double) total;
+    }
+
+    static double percentileMillis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,58 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test knobs. Every value can be overridden with a system property, e.g.
+ * {@code mvn -Pload-test verify -Dloadtest.clients=64 -Dloadtest.rate=2000 -Dloadtest.slo.p99-ms=50}.
+ * <p>
+ * {@code rate} is the request rate offered by all clients together, it has to be above the throughput SLO.
+ */
+record LoadTestSettings(int clients,
+                        double rate,
+                        Duration warmup,
+                        Duration duration,
+                        Map<LoadTestOperation, Integer> mix,
+                        double minThroughput,
+                        double maxP99Millis,
+                        double maxErrorRate,
+                        Path reportDir) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.clients", 32),
+                Double.parseDouble(System.getProperty("loadtest.rate", "1000")),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT5S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                parseMix(System.getProperty("loadtest.mix", "create=30,getById=35,getByEmail=25,delete=10")),
+                Double.parseDouble(System.getProperty("loadtest.slo.min-throughput", "500")),
+                Double.parseDouble(System.getProperty("loadtest.slo.p99-ms", "100")),
+                Double.parseDouble(System.getProperty("loadtest.slo.max-error-rate", "0.001")),
+                Path.of(System.getProperty("loadtest.report-dir", "target/load-test")));
+    }
+
+    /**
+     * Parses weights in the form {@code create=30,getById=35,getByEmail=25,delete=10}.
+     */
+    static Map<LoadTestOperation, Integer> parseMix(String mix) {
+        final Map<LoadTestOperation, Integer> weights = new EnumMap<>(LoadTestOperation.class);
+        for (String entry : mix.split(",")) {
+            final String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid load test mix entry: " + entry);
+            }
+            final int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Load test mix weight must not be negative: " + entry);
+            }
+            weights.put(LoadTestOperation.fromName(pair[0].trim()), weight);
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Load test mix has no operations: " + mix);
+        }
+        return weights;
+    }
+}
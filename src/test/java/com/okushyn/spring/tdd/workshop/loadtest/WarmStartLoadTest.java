@@ -0,0 +1,146 @@
+package com.okushyn.spring.tdd.workshop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.okushyn.spring.tdd.workshop.WorkshopApplication;
+import com.okushyn.spring.tdd.workshop.cache.ApplicantCache;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the latency of the first reads after a restart with a cold cache against a restart warmed from the snapshot.
+ * Excluded from the default build, run with {@code mvn -Pload-test verify -Dtest=WarmStartLoadTest}.
+ */
+@Tag("load")
+class WarmStartLoadTest {
+
+    private static final int APPLICANTS = Integer.getInteger("loadtest.warm-start.applicants", 2_000);
+    private static final int CLIENTS = Integer.getInteger("loadtest.warm-start.clients", 16);
+    private static final int JIT_WARMUP_REQUESTS = 2_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void snapshotWarmedStart_shouldServeFirstReadsFromCache() throws Exception {
+        final List<ApplicantLoadDriver.CreatedApplicant> applicants = new ArrayList<>();
+        try (ConfigurableApplicationContext seeding = start(true)) {
+            final ApplicantLoadDriver driver = driver(seeding);
+            for (int i = 0; i < APPLICANTS; i++) {
+                driver.create("warm-start-" + i + "@example.com").ifPresent(applicants::add);
+            }
+        }
+        //closing the context wrote the snapshot
+        assertThat(applicants).hasSize(APPLICANTS);
+
+        final Map<String, Object> cold;
+        try (ConfigurableApplicationContext context = start(false)) {
+            cold = firstReads(driver(context), applicants);
+        }
+
+        final Map<String, Object> warm;
+        try (ConfigurableApplicationContext context = start(true)) {
+            assertThat(context.getBean(ApplicantCache.class).size())
+                    .withFailMessage("Snapshot was not loaded before the application started")
+                    .isEqualTo(APPLICANTS);
+            warm = firstReads(driver(context), applicants);
+        }
+
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("applicants", APPLICANTS);
+        report.put("clients", CLIENTS);
+        report.put("cold", cold);
+        report.put("snapshotWarmed", warm);
+        final Path reportDir = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+        Files.createDirectories(reportDir);
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(reportDir.resolve("warm-start.json").toFile(), report);
+
+        assertThat(warm.get("errors")).isEqualTo(0L);
+        assertThat(cold.get("errors")).isEqualTo(0L);
+        assertThat((double) warm.get("p99Millis"))
+                .as("p99 of the first reads after a snapshot-warmed start, cold start p99 was %s ms", cold.get("p99Millis"))
+                .isLessThan((double) cold.get("p99Millis"));
+    }
+
+    /**
+     * Reads every applicant once by id and once by email, the way traffic hits a freshly started instance.
+     */
+    private Map<String, Object> firstReads(ApplicantLoadDriver driver, List<ApplicantLoadDriver.CreatedApplicant> applicants)
+            throws InterruptedException {
+        //same JIT warmup for both runs, an unknown id is never cached
+        for (int i = 0; i < JIT_WARMUP_REQUESTS; i++) {
+            driver.getById(-1);
+        }
+        driver.intervalHistogram(LoadTestOperation.GET_BY_ID);
+        final long warmupErrors = driver.errors(LoadTestOperation.GET_BY_ID);
+
+        try (ExecutorService clients = Executors.newFixedThreadPool(CLIENTS)) {
+            for (int client = 0; client < CLIENTS; client++) {
+                final int offset = client;
+                clients.submit(() -> {
+                    for (int i = offset; i < applicants.size(); i += CLIENTS) {
+                        driver.getById(applicants.get(i).applicantId());
+                        driver.getByEmail(applicants.get(i).email());
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(5, TimeUnit.MINUTES);
+        }
+
+        final Histogram reads = new Histogram(3);
+        reads.add(driver.intervalHistogram(LoadTestOperation.GET_BY_ID));
+        reads.add(driver.intervalHistogram(LoadTestOperation.GET_BY_EMAIL));
+
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", reads.getTotalCount());
+        result.put("errors", driver.errors(LoadTestOperation.GET_BY_ID) - warmupErrors
+                + driver.errors(LoadTestOperation.GET_BY_EMAIL));
+        result.put("p50Millis", LoadTestResult.percentileMillis(reads, 50));
+        result.put("p99Millis", LoadTestResult.percentileMillis(reads, 99));
+        result.put("maxMillis", reads.getMaxValue() / 1_000_000.0);
+        return result;
+    }
+
+    private ConfigurableApplicationContext start(boolean snapshotEnabled) {
+        return new SpringApplicationBuilder(WorkshopApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:file:" + dataDir.resolve("applicants").toAbsolutePath(),
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        //both starts cache reads, only the snapshot differs
+                        "workshop.cache.enabled=true",
+                        "workshop.snapshot.enabled=" + snapshotEnabled,
+                        "workshop.snapshot.file=" + dataDir.resolve("applicant-snapshot.bin").toAbsolutePath(),
+                        "workshop.snapshot.write-interval=PT1H",
+                        "workshop.snapshot.max-entries=" + APPLICANTS,
+                        "workshop.cache.max-entries=" + APPLICANTS,
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private ApplicantLoadDriver driver(ConfigurableApplicationContext context) {
+        final int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        return new ApplicantLoadDriver("http://localhost:" + port, objectMapper);
+    }
+}
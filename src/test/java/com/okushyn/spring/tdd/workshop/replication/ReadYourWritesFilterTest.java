@@ -0,0 +1,56 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import com.okushyn.spring.tdd.workshop.MutableClock;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesFilterTest {
+
+    final MutableClock clock = new MutableClock();
+    final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5), clock);
+
+    @Test
+    void doFilter_shouldPinWriteAndSetCookie() throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(pinned(new MockHttpServletRequest("POST", "/applicants"), response)).isTrue();
+        assertThat(response.getCookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE).getValue())
+                .isEqualTo(String.valueOf(clock.millis() + 5_000));
+    }
+
+    @Test
+    void doFilter_shouldPinReadWithinWindow() throws Exception {
+        assertThat(pinned(read(clock.millis() + 3_000), new MockHttpServletResponse())).isTrue();
+    }
+
+    @Test
+    void doFilter_shouldNotPinReadAfterWindow() throws Exception {
+        assertThat(pinned(read(clock.millis() - 1), new MockHttpServletResponse())).isFalse();
+    }
+
+    @Test
+    void doFilter_shouldIgnoreDeadlineBeyondOneWindow() throws Exception {
+        assertThat(pinned(read(Long.MAX_VALUE), new MockHttpServletResponse())).isFalse();
+        assertThat(pinned(read(clock.millis() + 5_001), new MockHttpServletResponse())).isFalse();
+    }
+
+    private static MockHttpServletRequest read(long primaryUntil) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/applicants");
+        request.setCookies(new Cookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE, String.valueOf(primaryUntil)));
+        return request;
+    }
+
+    private boolean pinned(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        final AtomicBoolean pinned = new AtomicBoolean();
+        filter.doFilter(request, response, (filteredRequest, filteredResponse) -> pinned.set(ReadYourWritesHolder.isPinnedToPrimary()));
+        assertThat(ReadYourWritesHolder.isPinnedToPrimary()).isFalse();
+        return pinned.get();
+    }
+}
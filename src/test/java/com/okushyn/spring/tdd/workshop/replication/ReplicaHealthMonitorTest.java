@@ -0,0 +1,79 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import com.okushyn.spring.tdd.workshop.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaHealthMonitorTest {
+
+    final MutableClock clock = new MutableClock();
+
+    JdbcTemplate primary;
+    JdbcTemplate replicaDatabase;
+    Replica replica;
+    ReplicaHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        final DataSource primaryDataSource = database("health-monitor-primary");
+        final DataSource replicaDataSource = database("health-monitor-replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replicaDatabase = new JdbcTemplate(replicaDataSource);
+        replica = new Replica("replica-0", replicaDataSource);
+        //a max lag below the interval used to keep every replica out of rotation
+        monitor = new ReplicaHealthMonitor(primaryDataSource,
+                new ReplicaSelector(List.of(replica), ReplicationProperties.LoadBalancing.ROUND_ROBIN),
+                Duration.ofSeconds(1), Duration.ofSeconds(2), clock);
+    }
+
+    @Test
+    void check_shouldKeepCaughtUpReplicaInRotationWhenIntervalExceedsMaxLag() {
+        monitor.check();
+        replicate();
+
+        clock.advance(Duration.ofSeconds(2));
+        monitor.check();
+
+        assertThat(replica.isHealthy()).isTrue();
+    }
+
+    @Test
+    void check_shouldTakeReplicaOutOfRotationWhenItMissedTheLastBeat() {
+        monitor.check();
+        replicate();
+        clock.advance(Duration.ofSeconds(2));
+        monitor.check();
+
+        //the second beat never reaches the replica
+        clock.advance(Duration.ofSeconds(2));
+        monitor.check();
+
+        assertThat(replica.isHealthy()).isFalse();
+    }
+
+    private void replicate() {
+        final Long beatAt = primary.queryForObject("select beat_at_millis from replication_heartbeat where id = 1", Long.class);
+        replicaDatabase.update("delete from replication_heartbeat");
+        replicaDatabase.update("insert into replication_heartbeat (id, beat_at_millis) values (1, ?)", beatAt);
+    }
+
+    private static DataSource database(String name) {
+        final DataSource dataSource = DataSourceBuilder.create()
+                .url("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1")
+                .username("sa")
+                .build();
+        new JdbcTemplate(dataSource).execute("drop table if exists replication_heartbeat");
+        new ResourceDatabasePopulator(new ClassPathResource("db/replication-heartbeat.sql")).execute(dataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,71 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setCurrentTransactionReadOnly;
+
+class ReplicaRoutingDataSourceTest {
+
+    final DataSource primary = mock(DataSource.class);
+    final DataSource replicaDataSource = mock(DataSource.class);
+    final Connection primaryConnection = mock(Connection.class);
+    final Connection replicaConnection = mock(Connection.class);
+
+    Replica replica;
+    ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replica = new Replica("replica-0", replicaDataSource);
+        replica.setHealthy(true);
+        routingDataSource = new ReplicaRoutingDataSource(primary,
+                new ReplicaSelector(List.of(replica), ReplicationProperties.LoadBalancing.ROUND_ROBIN));
+    }
+
+    @AfterEach
+    void tearDown() {
+        setCurrentTransactionReadOnly(false);
+        ReadYourWritesHolder.clear();
+    }
+
+    @Test
+    void getConnection_shouldUseReplicaForReadOnlyTransaction() throws SQLException {
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+        setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void getConnection_shouldUsePrimaryForWrites() throws SQLException {
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void getConnection_shouldUsePrimaryWhenRequestIsPinned() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+        ReadYourWritesHolder.pinToPrimary();
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void getConnection_shouldFallBackToPrimaryAndTakeReplicaOutOfRotationWhenReplicaRefusesConnection() throws SQLException {
+        when(replicaDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        setCurrentTransactionReadOnly(true);
+
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(replica.isHealthy()).isFalse();
+    }
+}
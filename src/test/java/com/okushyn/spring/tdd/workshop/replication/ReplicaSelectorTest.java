@@ -0,0 +1,73 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaSelectorTest {
+
+    @Test
+    void select_shouldRotateOverHealthyReplicas() {
+        final Replica first = replica(true, 0);
+        final Replica second = replica(true, 0);
+        final ReplicaSelector selector = new ReplicaSelector(List.of(first, second), ReplicationProperties.LoadBalancing.ROUND_ROBIN);
+
+        assertThat(select(selector, 4)).containsExactly(first, second, first, second);
+    }
+
+    @Test
+    void select_shouldSkipUnhealthyReplicas() {
+        final Replica healthy = replica(true, 0);
+        final ReplicaSelector selector = new ReplicaSelector(List.of(replica(false, 0), healthy),
+                ReplicationProperties.LoadBalancing.ROUND_ROBIN);
+
+        assertThat(select(selector, 3)).containsOnly(healthy);
+    }
+
+    @Test
+    void select_shouldReturnNullWhenNoReplicaIsHealthy() {
+        final ReplicaSelector selector = new ReplicaSelector(List.of(replica(false, 0), replica(false, 0)),
+                ReplicationProperties.LoadBalancing.LEAST_LOADED);
+
+        assertThat(selector.select()).isNull();
+    }
+
+    @Test
+    void select_shouldPickReplicaWithFewestActiveConnections() {
+        final Replica idle = replica(true, 1);
+        final ReplicaSelector selector = new ReplicaSelector(List.of(replica(true, 5), idle, replica(true, 3)),
+                ReplicationProperties.LoadBalancing.LEAST_LOADED);
+
+        assertThat(select(selector, 3)).containsOnly(idle);
+    }
+
+    @Test
+    void select_shouldRotateOverEquallyLoadedReplicas() {
+        final Replica first = replica(true, 2);
+        final Replica second = replica(true, 2);
+        final ReplicaSelector selector = new ReplicaSelector(List.of(first, second, replica(true, 4)),
+                ReplicationProperties.LoadBalancing.LEAST_LOADED);
+
+        assertThat(select(selector, 6)).containsOnly(first, second);
+    }
+
+    private static List<Replica> select(ReplicaSelector selector, int times) {
+        final List<Replica> selected = new ArrayList<>();
+        for (int i = 0; i < times; i++) {
+            selected.add(selector.select());
+        }
+        return selected;
+    }
+
+    private static Replica replica(boolean healthy, int activeConnections) {
+        final Replica replica = mock(Replica.class);
+        when(replica.isHealthy()).thenReturn(healthy);
+        when(replica.activeConnections()).thenReturn(activeConnections);
+        return replica;
+    }
+}
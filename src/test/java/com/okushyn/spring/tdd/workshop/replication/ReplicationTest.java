@@ -0,0 +1,181 @@
+package com.okushyn.spring.tdd.workshop.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.cache.CacheConfiguration;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.service.ApplicantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicant;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "workshop.replication.enabled=true",
+        "workshop.replication.primary.url=jdbc:h2:mem:replication-test-primary;DB_CLOSE_DELAY=-1",
+        "workshop.replication.replicas[0].url=jdbc:h2:mem:replication-test-replica0;DB_CLOSE_DELAY=-1",
+        "workshop.replication.replicas[1].url=jdbc:h2:mem:replication-test-replica1;DB_CLOSE_DELAY=-1",
+        "workshop.replication.initialize-replica-schema=true",
+        "workshop.replication.max-lag=PT5S",
+        //the tests run the health checks themselves
+        "workshop.replication.health-check-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class ReplicationTest {
+
+    private static final String EMAIL = "replicated@test.com";
+    //far above what the primary's sequence hands out during the tests
+    private static final long APPLICANT_ID = 1_000_000L;
+
+    @Autowired
+    ApplicantService applicantService;
+
+    @Autowired
+    ReplicatedDataSources replicatedDataSources;
+
+    @Autowired
+    ReplicaHealthMonitor replicaHealthMonitor;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    JdbcTemplate primary;
+    JdbcTemplate replica0;
+    JdbcTemplate replica1;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(replicatedDataSources.getPrimary());
+        replica0 = new JdbcTemplate(replicatedDataSources.getReplicas().get(0).getDataSource());
+        replica1 = new JdbcTemplate(replicatedDataSources.getReplicas().get(1).getDataSource());
+
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica0, replica1}) {
+            database.update("delete from applicant");
+        }
+        //every database holds its own version of the applicant, so the reader can be told from the answer
+        primary.update("insert into applicant (applicant_id, last_name, email) values (?, 'Primary', ?)", APPLICANT_ID, EMAIL);
+        replica0.update("insert into applicant (applicant_id, last_name, email) values (?, 'Replicazero', ?)", APPLICANT_ID, EMAIL);
+        replica1.update("insert into applicant (applicant_id, last_name, email) values (?, 'Replicaone', ?)", APPLICANT_ID, EMAIL);
+
+        heartbeat(replica0, System.currentTimeMillis());
+        heartbeat(replica1, System.currentTimeMillis());
+        replicaHealthMonitor.check();
+    }
+
+    @Test
+    void getByEmail_shouldReadFromReplicasInRoundRobin() {
+        assertThat(readLastNames(4)).containsExactlyInAnyOrder("Replicazero", "Replicaone");
+    }
+
+    @Test
+    void getById_shouldReadFromReplica() {
+        assertThat(applicantService.getById(APPLICANT_ID).getPerson().getPersonName().getLastName()).startsWith("Replica");
+    }
+
+    @Test
+    void save_shouldWriteToPrimary() {
+        final Applicant saved = applicantService.save(applicant("written@test.com"));
+
+        final String sql = "select count(*) from applicant where applicant_id = ?";
+        assertThat(primary.queryForObject(sql, Integer.class, saved.getApplicantId())).isEqualTo(1);
+        assertThat(replica0.queryForObject(sql, Integer.class, saved.getApplicantId())).isZero();
+        assertThat(replica1.queryForObject(sql, Integer.class, saved.getApplicantId())).isZero();
+    }
+
+    @Test
+    void getByEmail_shouldSkipLaggingReplica() {
+        heartbeat(replica0, System.currentTimeMillis() - 60_000);
+        replicaHealthMonitor.check();
+
+        assertThat(replicatedDataSources.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(readLastNames(4)).containsExactly("Replicaone");
+
+        heartbeat(replica0, System.currentTimeMillis());
+        replicaHealthMonitor.check();
+
+        assertThat(readLastNames(4)).containsExactlyInAnyOrder("Replicazero", "Replicaone");
+    }
+
+    @Test
+    void getByEmail_shouldReadFromPrimaryWhenNoReplicaIsHealthy() {
+        heartbeat(replica0, System.currentTimeMillis() - 60_000);
+        //a replica that can't answer the health check counts as failed
+        replica1.update("delete from replication_heartbeat");
+        replicaHealthMonitor.check();
+
+        assertThat(readLastNames(2)).containsExactly("Primary");
+    }
+
+    @Test
+    void getApplicant_shouldReadFromReplicaWithoutPrecedingWrite() throws Exception {
+        mockMvc.perform(get("/applicants").param("email", EMAIL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.person.personName.lastName", startsWith("Replica")));
+    }
+
+    @Test
+    void getApplicant_shouldReadOwnWriteFromPrimary() throws Exception {
+        final String email = "read-own-write@test.com";
+        final MvcResult write = mockMvc.perform(post("/applicants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(applicant(email))))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE))
+                .andReturn();
+
+        //the replicas never receive the write, only the primary can answer
+        mockMvc.perform(get("/applicants").param("email", email).cookie(write.getResponse().getCookies()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/applicants").param("email", email))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void replication_shouldNotStartTogetherWithSharding() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(ReplicationConfiguration.class)
+                .withPropertyValues("workshop.replication.enabled=true", "workshop.sharding.enabled=true")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasStackTraceContaining("can't both be true"));
+    }
+
+    @Test
+    void replication_shouldNotStartTogetherWithCache() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(CacheConfiguration.class, ReplicationConfiguration.class)
+                .withPropertyValues("workshop.replication.enabled=true", "workshop.cache.enabled=true")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasStackTraceContaining("workshop.cache.enabled and workshop.replication.enabled can't both be true"));
+    }
+
+    private Set<String> readLastNames(int reads) {
+        final Set<String> lastNames = new HashSet<>();
+        for (int i = 0; i < reads; i++) {
+            lastNames.add(applicantService.getByEmail(EMAIL).getPerson().getPersonName().getLastName());
+        }
+        return lastNames;
+    }
+
+    private static void heartbeat(JdbcTemplate database, long beatAtMillis) {
+        database.update("delete from replication_heartbeat");
+        database.update("insert into replication_heartbeat (id, beat_at_millis) values (1, ?)", beatAtMillis);
+    }
+}
@@ -0,0 +1,102 @@
+package com.okushyn.spring.tdd.workshop.service;
+
+import com.okushyn.spring.tdd.workshop.cache.ApplicantCache;
+import com.okushyn.spring.tdd.workshop.cache.CacheConfiguration;
+import com.okushyn.spring.tdd.workshop.exceptions.ApplicantNotExistsException;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.model.ContactPoint;
+import com.okushyn.spring.tdd.workshop.model.ElectronicAddress;
+import com.okushyn.spring.tdd.workshop.repository.ApplicantRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+@SpringJUnitConfig(classes = {ApplicantService.class, CacheConfiguration.class})
+@TestPropertySource(properties = "workshop.cache.enabled=true")
+class ApplicantServiceCacheTest {
+
+    @Autowired
+    ApplicantService applicantService;
+
+    @MockitoBean
+    ApplicantRepository applicantRepository;
+
+    @Autowired
+    ApplicantCache applicantCache;
+
+    @BeforeEach
+    void clearCache() { //the context is shared between tests, an applicant cached by one test must not hide repository calls of another
+        applicantCache.clear();
+    }
+
+    @Test
+    void getById_shouldServeRepeatedReadsFromCache() {
+        long applicantId = 7L;
+        final Applicant applicant = Applicant.builder().applicantId(applicantId)
+                .contactPoint(ContactPoint.builder()
+                        .electronicAddress(ElectronicAddress.builder()
+                                .email("test@test.com")
+                                .build())
+                        .build())
+                .build();
+        when(applicantRepository.findById(applicantId)).thenReturn(Optional.of(applicant));
+
+        applicantService.getById(applicantId);
+        final Applicant cached = applicantService.getByEmail("test@test.com");
+
+        assertThat(cached).isEqualTo(applicant);
+        verify(applicantRepository, times(1)).findById(applicantId);
+        verify(applicantRepository, never()).findByEmail(any(String.class));
+    }
+
+    @Test
+    void deleteApplicantById_shouldEvictApplicantFromCache() {
+        long applicantId = 7L;
+        final Applicant applicant = Applicant.builder().applicantId(applicantId)
+                .contactPoint(ContactPoint.builder()
+                        .electronicAddress(ElectronicAddress.builder()
+                                .email("test@test.com")
+                                .build())
+                        .build())
+                .build();
+        when(applicantRepository.findById(applicantId)).thenReturn(Optional.of(applicant));
+        applicantService.getById(applicantId);
+
+        applicantService.deleteApplicantById(applicantId);
+
+        Assertions.assertThat(applicantCache.getById(applicantId)).isEmpty();
+        Assertions.assertThat(applicantCache.getByEmail("test@test.com")).isEmpty();
+    }
+
+    @Test
+    void deleteApplicantById_shouldThrowExceptionIfCachedApplicantIsGoneFromRepository() {
+        long applicantId = 7L;
+        applicantCache.put(Applicant.builder().applicantId(applicantId)
+                .contactPoint(ContactPoint.builder()
+                        .electronicAddress(ElectronicAddress.builder()
+                                .email("test@test.com")
+                                .build())
+                        .build())
+                .build());
+        when(applicantRepository.findById(applicantId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> applicantService.deleteApplicantById(applicantId))
+                .isInstanceOf(ApplicantNotExistsException.class);
+
+        verify(applicantRepository, never()).deleteById(anyLong());
+        Assertions.assertThat(applicantCache.getById(applicantId)).isEmpty();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.okushyn.spring.tdd.workshop.service;
 
+import com.okushyn.spring.tdd.workshop.cache.CacheConfiguration;
 import com.okushyn.spring.tdd.workshop.exceptions.ApplicantAlreadyExistsException;
 import com.okushyn.spring.tdd.workshop.exceptions.ApplicantNotExistsException;
 import com.okushyn.spring.tdd.workshop.model.Applicant;
@@ -22,7 +23,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
-@SpringJUnitConfig(classes = {ApplicantService.class}) //we ask spring to create real Applicant service
+@SpringJUnitConfig(classes = {ApplicantService.class, CacheConfiguration.class}) //we ask spring to create real Applicant service
 class ApplicantServiceTest {
 
     @Autowired
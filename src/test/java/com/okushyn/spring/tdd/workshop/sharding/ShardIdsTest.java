@@ -0,0 +1,53 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardIdsTest {
+
+    @Test
+    void encode_shouldKeepShardAndLocalId() {
+        final long applicantId = ShardIds.encode(5, 42);
+
+        assertThat(ShardIds.shardOf(applicantId)).isEqualTo(5);
+        assertThat(applicantId >> ShardIds.SHARD_BITS).isEqualTo(42);
+    }
+
+    @Test
+    void shardForEmail_shouldOnlyMoveEmailsToTheAppendedShard() {
+        final int emails = 10_000;
+        int moved = 0;
+        for (int i = 0; i < emails; i++) {
+            final String email = "applicant" + i + "@test.com";
+            final int before = ShardIds.shardForEmail(email, 4);
+            final int after = ShardIds.shardForEmail(email, 5);
+            if (before != after) {
+                assertThat(after).isEqualTo(4);
+                moved++;
+            }
+        }
+
+        //a fifth shard should take over about a fifth of the emails
+        assertThat((double) moved / emails).isBetween(0.17, 0.23);
+    }
+
+    @Test
+    void shardForEmail_shouldSpreadEmailsEvenly() {
+        final int[] perShard = new int[3];
+        for (int i = 0; i < 9_000; i++) {
+            perShard[ShardIds.shardForEmail("applicant" + i + "@test.com", 3)]++;
+        }
+
+        for (int count : perShard) {
+            assertThat(count).isBetween(2_700, 3_300);
+        }
+    }
+
+    @Test
+    void shardForEmail_shouldRejectEmptyCluster() {
+        assertThatThrownBy(() -> ShardIds.shardForEmail("test@test.com", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
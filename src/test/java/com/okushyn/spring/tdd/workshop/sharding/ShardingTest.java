@@ -0,0 +1,180 @@
+package com.okushyn.spring.tdd.workshop.sharding;
+
+import com.okushyn.spring.tdd.workshop.exceptions.ApplicantNotExistsException;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.service.ApplicantService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicant;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        //lookups must reach the shards, not the cache
+        "workshop.cache.enabled=false",
+        "workshop.sharding.enabled=true",
+        "workshop.sharding.shards[0].url=jdbc:h2:mem:sharding-test-0;DB_CLOSE_DELAY=-1",
+        "workshop.sharding.shards[1].url=jdbc:h2:mem:sharding-test-1;DB_CLOSE_DELAY=-1",
+        "workshop.sharding.shards[2].url=jdbc:h2:mem:sharding-test-2;DB_CLOSE_DELAY=-1"
+})
+class ShardingTest {
+
+    @Autowired
+    ApplicantService applicantService;
+
+    @Autowired
+    ShardDataSources shardDataSources;
+
+    @Autowired
+    ShardRebalancer shardRebalancer;
+
+    @Test
+    void save_shouldStoreApplicantOnShardOfItsEmail() {
+        for (int i = 0; i < 20; i++) {
+            final String email = "sharded" + i + "@test.com";
+
+            final Applicant saved = applicantService.save(applicant(email));
+
+            final int expectedShard = ShardIds.shardForEmail(email, 3);
+            assertThat(ShardIds.shardOf(saved.getApplicantId())).isEqualTo(expectedShard);
+            assertThat(countById(expectedShard, saved.getApplicantId())).isEqualTo(1);
+
+            assertThat(applicantService.getById(saved.getApplicantId()))
+                    .extracting(applicant -> applicant.getContactPoint().getElectronicAddress().getEmail())
+                    .isEqualTo(email);
+            assertThat(applicantService.getByEmail(email))
+                    .extracting(Applicant::getApplicantId)
+                    .isEqualTo(saved.getApplicantId());
+        }
+    }
+
+    @Test
+    void deleteApplicantById_shouldRemoveApplicantFromItsShard() {
+        final Applicant saved = applicantService.save(applicant("toDelete@test.com"));
+        final int shard = ShardIds.shardOf(saved.getApplicantId());
+
+        applicantService.deleteApplicantById(saved.getApplicantId());
+
+        assertThat(countById(shard, saved.getApplicantId())).isZero();
+        assertThatThrownBy(() -> applicantService.getById(saved.getApplicantId()))
+                .isInstanceOf(ApplicantNotExistsException.class);
+    }
+
+    @Test
+    void getById_shouldThrowExceptionIfIdBelongsToUnknownShard() {
+        assertThatThrownBy(() -> applicantService.getById(ShardIds.encode(7, 1)))
+                .isInstanceOf(ApplicantNotExistsException.class);
+    }
+
+    @Test
+    void rebalance_shouldMoveApplicantsToShardOfTheirEmailWhenShardIsAdded() {
+        final List<DataSource> dataSources = new ArrayList<>();
+        final List<DataFieldMaxValueIncrementer> sequences = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            final String url = "jdbc:h2:mem:rebalance-test-" + shard + ";DB_CLOSE_DELAY=-1";
+            final DataSource dataSource = DataSourceBuilder.create()
+                    .url(url)
+                    .username("sa")
+                    .build();
+            new ResourceDatabasePopulator(new ClassPathResource("db/applicant-schema.sql")).execute(dataSource);
+            dataSources.add(dataSource);
+            sequences.add(ShardingConfiguration.applicantSequence(url, dataSource));
+        }
+        final ShardDataSources threeShards = new ShardDataSources(dataSources);
+
+        //data distributed while there were only two shards
+        final Map<String, Long> idsByEmail = new LinkedHashMap<>();
+        for (int i = 0; i < 30; i++) {
+            final String email = "rebalance" + i + "@test.com";
+            final int shard = ShardIds.shardForEmail(email, 2);
+            final long applicantId = ShardIds.encode(shard, sequences.get(shard).nextLongValue());
+            new JdbcTemplate(threeShards.shard(shard)).update("insert into applicant (applicant_id, last_name, email) values (?, ?, ?)",
+                    applicantId, "Lastname", email);
+            idsByEmail.put(email, applicantId);
+        }
+        final List<String> moving = idsByEmail.keySet().stream()
+                .filter(email -> ShardIds.shardForEmail(email, 3) != ShardIds.shardForEmail(email, 2))
+                .toList();
+        assertThat(moving).isNotEmpty();
+
+        final ShardRebalancer rebalancer = new ShardRebalancer(threeShards, sequences);
+
+        assertThat(rebalancer.rebalance()).isEqualTo(moving.size());
+
+        for (String email : idsByEmail.keySet()) {
+            final int shard = ShardIds.shardForEmail(email, 3);
+            final List<Long> ids = new JdbcTemplate(threeShards.shard(shard))
+                    .queryForList("select applicant_id from applicant where email = ?", Long.class, email);
+            assertThat(ids).hasSize(1);
+            assertThat(ShardIds.shardOf(ids.get(0))).isEqualTo(shard);
+            if (moving.contains(email)) {
+                //only the appended shard takes applicants over
+                assertThat(shard).isEqualTo(2);
+                final long oldId = idsByEmail.get(email);
+                assertThat(new JdbcTemplate(threeShards.shard(ShardIds.shardOf(oldId)))
+                        .queryForObject("select forwarded_to from applicant_forward where applicant_id = ?", Long.class, oldId))
+                        .isEqualTo(ids.get(0));
+            } else {
+                assertThat(ids.get(0)).isEqualTo(idsByEmail.get(email));
+            }
+        }
+        int total = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            total += new JdbcTemplate(threeShards.shard(shard)).queryForObject("select count(*) from applicant", Integer.class);
+        }
+        assertThat(total).isEqualTo(idsByEmail.size());
+
+        assertThat(rebalancer.rebalance()).isZero();
+    }
+
+    @Test
+    void getById_shouldFollowApplicantMovedByRebalancing() {
+        //stored where it hashed to before the third shard was added
+        final String email = IntStream.range(0, 100)
+                .mapToObj(i -> "moved" + i + "@test.com")
+                .filter(candidate -> ShardIds.shardForEmail(candidate, 3) != ShardIds.shardForEmail(candidate, 2))
+                .findFirst()
+                .orElseThrow();
+        final long oldId = ShardIds.encode(ShardIds.shardForEmail(email, 2), 1_000_000);
+        new JdbcTemplate(shardDataSources.shard(ShardIds.shardOf(oldId)))
+                .update("insert into applicant (applicant_id, last_name, email) values (?, ?, ?)", oldId, "Lastname", email);
+
+        assertThat(shardRebalancer.rebalance()).isEqualTo(1);
+
+        final Applicant moved = applicantService.getById(oldId);
+        assertThat(moved.getContactPoint().getElectronicAddress().getEmail()).isEqualTo(email);
+        assertThat(ShardIds.shardOf(moved.getApplicantId())).isEqualTo(2);
+
+        applicantService.deleteApplicantById(oldId);
+
+        assertThat(countById(2, moved.getApplicantId())).isZero();
+        assertThatThrownBy(() -> applicantService.getById(oldId))
+                .isInstanceOf(ApplicantNotExistsException.class);
+    }
+
+    @Test
+    void applicantSequence_shouldRefuseDatabasesTheShardSqlDoesNotRunOn() {
+        assertThatThrownBy(() -> ShardingConfiguration.applicantSequence("jdbc:oracle:thin:@localhost:1521/shards", null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("H2 or PostgreSQL");
+    }
+
+    private int countById(int shard, long applicantId) {
+        return new JdbcTemplate(shardDataSources.shard(shard))
+                .queryForObject("select count(*) from applicant where applicant_id = ?", Integer.class, applicantId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okushyn.spring.tdd.workshop.model.Applicant;
+import com.okushyn.spring.tdd.workshop.repository.ApplicantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.okushyn.spring.tdd.workshop.TestApplicants.applicant;
+import static com.okushyn.spring.tdd.workshop.sql.SqlStatementResultMatchers.sqlStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ApplicantStatementCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ApplicantRepository applicantRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        applicantRepository.deleteAll();
+    }
+
+    @Test
+    void createApplicant_shouldCheckEmailThenInsertOnce() throws Exception {
+        //fetches the first block of ids from the sequence
+        applicantRepository.save(applicant("count-create-first@test.com"));
+
+        mockMvc.perform(post("/applicants")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(applicant("count-create@test.com"))))
+                .andExpect(status().isCreated())
+                //email lookup, insert; the id comes from the pooled block
+                .andExpect(sqlStatements().insert(1))
+                .andExpect(sqlStatements().total(2));
+    }
+
+    @Test
+    void getApplicantById_shouldIssueSingleSelect() throws Exception {
+        final Applicant saved = applicantRepository.save(applicant("count-get-id@test.com"));
+
+        mockMvc.perform(get("/applicants/" + saved.getApplicantId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().select(1))
+                .andExpect(sqlStatements().total(1));
+    }
+
+    @Test
+    void getApplicantByEmail_shouldIssueSingleSelect() throws Exception {
+        applicantRepository.save(applicant("count-get-email@test.com"));
+
+        mockMvc.perform(get("/applicants").param("email", "count-get-email@test.com"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().select(1))
+                .andExpect(sqlStatements().total(1));
+    }
+
+    @Test
+    void deleteApplicant_shouldSelectOnlyOnce() throws Exception {
+        final Applicant saved = applicantRepository.save(applicant("count-delete@test.com"));
+
+        //deleteById finds the applicant loaded by the existence check in the same transaction
+        mockMvc.perform(delete("/applicants/" + saved.getApplicantId()))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().select(1))
+                .andExpect(sqlStatements().delete(1))
+                .andExpect(sqlStatements().total(2));
+    }
+
+    @Test
+    void getApplicantById_shouldRecordQueryLatencyForServiceMethod() throws Exception {
+        final Applicant saved = applicantRepository.save(applicant("count-metrics@test.com"));
+
+        mockMvc.perform(get("/applicants/" + saved.getApplicantId()))
+                .andExpect(status().isOk());
+
+        final Timer timer = meterRegistry.find(SqlDiagnosticsListener.METRIC_NAME)
+                .tag("origin", "ApplicantService.getById")
+                .tag("type", "select")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isPositive();
+    }
+}
@@ -0,0 +1,61 @@
+package com.okushyn.spring.tdd.workshop.sql;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MockMvc matchers for the statements a request issued, e.g.
+ * {@code mockMvc.perform(get("/applicants/7")).andExpect(sqlStatements().select(1))}.
+ * Needs the real filter chain, i.e. {@code @SpringBootTest} with {@code @AutoConfigureMockMvc}.
+ */
+public final class SqlStatementResultMatchers {
+
+    private SqlStatementResultMatchers() {
+    }
+
+    public static SqlStatementResultMatchers sqlStatements() {
+        return new SqlStatementResultMatchers();
+    }
+
+    public ResultMatcher select(int expected) {
+        return count("select", SqlStatementCounts::select, expected);
+    }
+
+    public ResultMatcher insert(int expected) {
+        return count("insert", SqlStatementCounts::insert, expected);
+    }
+
+    public ResultMatcher update(int expected) {
+        return count("update", SqlStatementCounts::update, expected);
+    }
+
+    public ResultMatcher delete(int expected) {
+        return count("delete", SqlStatementCounts::delete, expected);
+    }
+
+    public ResultMatcher total(int expected) {
+        return count("total", SqlStatementCounts::total, expected);
+    }
+
+    private static ResultMatcher count(String description, ToIntFunction<SqlStatementCounts> count, int expected) {
+        return result -> {
+            final SqlStatementCounts counts = counts(result);
+            assertThat(count.applyAsInt(counts))
+                    .as("%s statements of %s %s (%s)", description,
+                            result.getRequest().getMethod(), result.getRequest().getRequestURI(), counts)
+                    .isEqualTo(expected);
+        };
+    }
+
+    private static SqlStatementCounts counts(MvcResult result) {
+        final Object counts = result.getRequest().getAttribute(SqlStatementCountingFilter.STATEMENT_COUNTS_ATTRIBUTE);
+        assertThat(counts)
+                .as("No SQL statement counts recorded, is SqlStatementCountingFilter in the filter chain?")
+                .isInstanceOf(SqlStatementCounts.class);
+        return (SqlStatementCounts) counts;
+    }
+}